@@ -0,0 +1,84 @@
+package com.example.storecashier;
+
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.annotation.OptIn;
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.ExperimentalBenchmarkStateApi;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.junit.Assert.fail;
+
+/**
+ * 仪器基准的基线比对，与 JVM 基准的 MicroBenchmark 规则一致：
+ * - 基线保存在 androidTest/assets/benchmark-baseline.properties（基准真机录制）
+ * - 中位数比基线慢超过 REGRESSION_TOLERANCE 则测试失败，基线中没有的项只输出结果
+ * - 录制：加 -Pandroid.testInstrumentationRunnerArguments.benchmark.record=true，
+ *   结果写入 build/outputs/connected_android_test_additional_output，拷回 assets 后提交
+ */
+final class BenchmarkBaseline {
+    private static final String TAG = "BenchmarkBaseline";
+    private static final String BASELINE_ASSET = "benchmark-baseline.properties";
+    private static final double REGRESSION_TOLERANCE = 0.25;
+
+    private static Properties baseline;
+    private static final Properties recorded = new Properties();
+
+    private BenchmarkBaseline() {}
+
+    // 在 keepRunning() 循环结束后调用
+    @OptIn(markerClass = ExperimentalBenchmarkStateApi.class)
+    static void check(String name, BenchmarkState state) throws IOException {
+        List<Double> samples = new ArrayList<>(state.getMeasurementTimeNs());
+        Collections.sort(samples);
+        long median = Math.round(samples.get(samples.size() / 2));
+        Log.i(TAG, String.format(Locale.ROOT, "%s median %d ns/op", name, median));
+
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        if (Boolean.parseBoolean(arguments.getString("benchmark.record"))) {
+            record(name, median, arguments);
+            return;
+        }
+        String base = loadBaseline().getProperty(name);
+        if (base != null) {
+            long baseMedian = Long.parseLong(base);
+            if (median > baseMedian * (1 + REGRESSION_TOLERANCE)) {
+                fail(String.format(Locale.ROOT, "%s regressed: %d ns/op, baseline %d ns/op", name, median, baseMedian));
+            }
+        }
+    }
+
+    private static synchronized Properties loadBaseline() throws IOException {
+        if (baseline == null) {
+            baseline = new Properties();
+            try (InputStream in = InstrumentationRegistry.getInstrumentation().getContext().getAssets().open(BASELINE_ASSET)) {
+                baseline.load(in);
+            }
+        }
+        return baseline;
+    }
+
+    private static synchronized void record(String name, long median, Bundle arguments) throws IOException {
+        recorded.setProperty(name, String.valueOf(median));
+        String outputDir = arguments.getString("additionalTestOutputDir");
+        File dir = outputDir != null ? new File(outputDir)
+                : InstrumentationRegistry.getInstrumentation().getTargetContext().getExternalFilesDir(null);
+        File file = new File(dir, BASELINE_ASSET);
+        try (OutputStream out = new FileOutputStream(file)) {
+            recorded.store(out, "Median ns/op, recorded with benchmark.record=true");
+        }
+        Log.i(TAG, "Baseline written to " + file);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.storecashier;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 结算事务基准（内存数据库）：1 / 10 / 100 行购物车
+ * 默认跳过，运行：./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.benchmark=true
+ * 结果与 assets 中的基线比对，见 BenchmarkBaseline
+ */
+@RunWith(AndroidJUnit4.class)
+public class CheckoutBenchmark {
+    private static final int CATALOG_SIZE = 1000;
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private AppDatabase db;
+    private CheckoutEngine engine;
+    private List<Product> catalog;
+
+    @Before
+    public void setUp() {
+        assumeTrue("Run with -Pandroid.testInstrumentationRunnerArguments.benchmark=true",
+                Boolean.parseBoolean(InstrumentationRegistry.getArguments().getString("benchmark")));
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        catalog = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            // 库存足够大，基准循环中不会扣成负数
+            catalog.add(new Product(String.format("69%011d", i), "商品" + i,
+                    1 + (i % 500) / 10.0, Integer.MAX_VALUE / 2, "分类" + (i % 20), null));
+        }
+        db.productDao().insertAll(catalog);
+        engine = new CheckoutEngine(db);
+    }
+
+    @After
+    public void tearDown() {
+        if (db != null) {
+            db.close();
+        }
+    }
+
+    @Test
+    public void checkout_1Line() throws Exception {
+        measureCheckout("checkout_1Line", 1);
+    }
+
+    @Test
+    public void checkout_10Lines() throws Exception {
+        measureCheckout("checkout_10Lines", 10);
+    }
+
+    @Test
+    public void checkout_100Lines() throws Exception {
+        measureCheckout("checkout_100Lines", 100);
+    }
+
+    private void measureCheckout(String name, int lines) throws Exception {
+        CartModel cart = new CartModel();
+        for (int i = 0; i < lines; i++) {
+            cart.add(catalog.get(i * 7 % CATALOG_SIZE));
+        }
+        List<CartItem> items = cart.snapshot();
+        double total = MoneyUtil.toYuan(cart.getTotalFen());
+
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            engine.checkout(items, total);
+        }
+        BenchmarkBaseline.check(name, state);
+    }
+}
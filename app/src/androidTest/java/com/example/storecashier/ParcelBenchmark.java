@@ -0,0 +1,103 @@
+package com.example.storecashier;
+
+import android.os.Parcel;
+import android.util.Log;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 购物车跨配置变更保存/恢复时的 Parcelable 往返开销：完整 CartItem 列表与精简快照 CartSnapshot 对比
+ * 结果与 assets 中的基线比对，见 BenchmarkBaseline
+ */
+@RunWith(AndroidJUnit4.class)
+public class ParcelBenchmark {
+    private static final String TAG = "ParcelBenchmark";
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private ArrayList<CartItem> cartItems;
+
+    @Before
+    public void setUp() {
+        assumeTrue("Run with -Pandroid.testInstrumentationRunnerArguments.benchmark=true",
+                Boolean.parseBoolean(InstrumentationRegistry.getArguments().getString("benchmark")));
+        cartItems = new ArrayList<>(100);
+        for (int i = 0; i < 100; i++) {
+            Product product = new Product(String.format("69%011d", i), "商品" + i,
+                    1 + i / 10.0, 100, "分类" + (i % 20), "/data/images/" + i + ".jpg");
+            product.setId(i + 1);
+            cartItems.add(new CartItem(product, 1 + i % 3));
+        }
+    }
+
+    @Test
+    public void product_roundTrip() throws Exception {
+        Product product = cartItems.get(0).getProduct();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            Parcel parcel = Parcel.obtain();
+            product.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            Product.CREATOR.createFromParcel(parcel);
+            parcel.recycle();
+        }
+        BenchmarkBaseline.check("product_roundTrip", state);
+    }
+
+    @Test
+    public void cart100Lines_roundTrip() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            Parcel parcel = Parcel.obtain();
+            parcel.writeTypedList(cartItems);
+            parcel.setDataPosition(0);
+            parcel.createTypedArrayList(CartItem.CREATOR);
+            parcel.recycle();
+        }
+        BenchmarkBaseline.check("cart100Lines_roundTrip", state);
+    }
+
+    // 与 cart100Lines_roundTrip 对比：onSaveInstanceState 实际使用的精简快照
+    @Test
+    public void cart100Lines_snapshotRoundTrip() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            Parcel parcel = Parcel.obtain();
+            CartSnapshot.of(cartItems).writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            CartSnapshot.CREATOR.createFromParcel(parcel);
+            parcel.recycle();
+        }
+        BenchmarkBaseline.check("cart100Lines_snapshotRoundTrip", state);
+    }
+
+    // 序列化后的字节数，结果输出到 logcat
+    @Test
+    public void cart100Lines_parcelSize() {
+        Parcel full = Parcel.obtain();
+        full.writeTypedList(cartItems);
+        Parcel snapshot = Parcel.obtain();
+        CartSnapshot.of(cartItems).writeToParcel(snapshot, 0);
+
+        int fullSize = full.dataSize();
+        int snapshotSize = snapshot.dataSize();
+        full.recycle();
+        snapshot.recycle();
+        Log.i(TAG, "100 lines: CartItem list " + fullSize + " bytes, CartSnapshot " + snapshotSize + " bytes");
+        assertTrue(snapshotSize * 4 < fullSize);
+    }
+}
@@ -165,21 +165,24 @@ public class AddProductFragment extends Fragment {
         }
 
         // 使用 Room 后台操作
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        AppExecutors.bulkExecutor.execute(() -> {
             Product existing = productViewModel.getProductByBarcodeSync(barcode);
             if (existing != null) {
                 requireActivity().runOnUiThread(() -> 
                     Toast.makeText(requireContext(), "该条形码已存在，请勿重复录入", Toast.LENGTH_SHORT).show()
                 );
             } else {
-                // 如果选择了图片，拷贝到私有目录
-                String imagePath = null;
+                // 如果选择了图片，压缩并生成缩略图后保存到私有目录
+                ImagePipeline.Result image = null;
                 if (selectedImageUri != null) {
-                    String fileName = "img_" + barcode + "_" + System.currentTimeMillis() + ".jpg";
-                    imagePath = FileUtil.copyImageToInternal(requireContext(), selectedImageUri, fileName);
+                    image = ImagePipeline.ingest(requireContext(), selectedImageUri);
                 }
 
-                Product product = new Product(barcode, name, price, stock, category, imagePath);
+                Product product = new Product(barcode, name, price, stock, category,
+                        image != null ? image.getImagePath() : null);
+                if (image != null) {
+                    product.setThumbnailPath(image.getThumbnailPath());
+                }
                 productViewModel.insert(product);
                 requireActivity().runOnUiThread(() -> {
                     Toast.makeText(requireContext(), "商品录入成功！", Toast.LENGTH_SHORT).show();
@@ -1,6 +1,7 @@
 package com.example.storecashier;
 
 import android.content.Context;
+import android.database.Cursor;
 
 import androidx.annotation.NonNull;
 import androidx.room.Database;
@@ -8,19 +9,18 @@ import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-@Database(entities = {Product.class, Order.class, OrderItem.class}, version = 4, exportSchema = false)
+@Database(entities = {Product.class, Order.class, OrderItem.class,
+        SalesHourly.class, SalesDaily.class, SkuSalesDaily.class, CategorySalesDaily.class,
+        ProductFts.class, StockShortage.class},
+        version = 9, exportSchema = false)
 public abstract class AppDatabase extends RoomDatabase {
     public abstract ProductDao productDao();
     public abstract OrderDao orderDao();
+    public abstract SalesDao salesDao();
 
     private static volatile AppDatabase INSTANCE;
-    private static final int NUMBER_OF_THREADS = 4;
-    public static final ExecutorService databaseWriteExecutor =
-            Executors.newFixedThreadPool(NUMBER_OF_THREADS);
 
     // 迁移：版本 1 到 2，添加 category 列
     static final Migration MIGRATION_1_2 = new Migration(1, 2) {
@@ -63,13 +63,142 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    // 迁移：版本 4 到 5，为 orders.timestamp 添加索引（历史订单分页）
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_orders_timestamp` ON `orders` (`timestamp`)");
+        }
+    };
+
+    // 迁移：版本 5 到 6，添加销售汇总表（按小时、按天、按商品、按分类）并用历史订单回填
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `sales_hourly` (" +
+                    "`hourStart` INTEGER NOT NULL, " +
+                    "`orderCount` INTEGER NOT NULL, " +
+                    "`itemCount` INTEGER NOT NULL, " +
+                    "`revenueFen` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`hourStart`))");
+
+            database.execSQL("CREATE TABLE IF NOT EXISTS `sales_daily` (" +
+                    "`dayStart` INTEGER NOT NULL, " +
+                    "`orderCount` INTEGER NOT NULL, " +
+                    "`itemCount` INTEGER NOT NULL, " +
+                    "`revenueFen` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`dayStart`))");
+
+            database.execSQL("CREATE TABLE IF NOT EXISTS `sales_sku_daily` (" +
+                    "`dayStart` INTEGER NOT NULL, " +
+                    "`barcode` TEXT NOT NULL, " +
+                    "`productName` TEXT, " +
+                    "`quantity` INTEGER NOT NULL, " +
+                    "`revenueFen` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`dayStart`, `barcode`))");
+
+            database.execSQL("CREATE TABLE IF NOT EXISTS `sales_category_daily` (" +
+                    "`dayStart` INTEGER NOT NULL, " +
+                    "`category` TEXT NOT NULL, " +
+                    "`quantity` INTEGER NOT NULL, " +
+                    "`revenueFen` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`dayStart`, `category`))");
+
+            // 用已有订单回填汇总，与 SalesRollup.rebuild 的口径一致：
+            // 按本地时间分小时、分天，金额按单价换算成分后乘数量，分类取商品当前分类，商品名取最后一单
+            database.execSQL("CREATE TEMP TABLE `rollup_lines` AS SELECT o.orderId AS orderId, " +
+                    "strftime('%s', strftime('%Y-%m-%d %H:00:00', o.timestamp / 1000, 'unixepoch', 'localtime'), 'utc') * 1000 AS hourStart, " +
+                    "strftime('%s', o.timestamp / 1000, 'unixepoch', 'localtime', 'start of day', 'utc') * 1000 AS dayStart, " +
+                    "IFNULL(i.barcode, '') AS barcode, i.productName AS productName, i.quantity AS quantity, " +
+                    "CAST(ROUND(i.price * 100) AS INTEGER) * i.quantity AS lineFen, IFNULL(p.category, '') AS category " +
+                    "FROM order_items i JOIN orders o ON o.orderId = i.orderId " +
+                    "LEFT JOIN product p ON p.barcode = i.barcode");
+            database.execSQL("INSERT INTO `sales_hourly` (`hourStart`, `orderCount`, `itemCount`, `revenueFen`) " +
+                    "SELECT hourStart, COUNT(DISTINCT orderId), SUM(quantity), SUM(lineFen) " +
+                    "FROM `rollup_lines` GROUP BY hourStart");
+            database.execSQL("INSERT INTO `sales_daily` (`dayStart`, `orderCount`, `itemCount`, `revenueFen`) " +
+                    "SELECT dayStart, COUNT(DISTINCT orderId), SUM(quantity), SUM(lineFen) " +
+                    "FROM `rollup_lines` GROUP BY dayStart");
+            // MAX(orderId) 使 productName 取自同组中最后一单（SQLite 聚合的裸列规则）
+            database.execSQL("INSERT INTO `sales_sku_daily` (`dayStart`, `barcode`, `productName`, `quantity`, `revenueFen`) " +
+                    "SELECT dayStart, barcode, productName, quantity, revenueFen FROM (" +
+                    "SELECT dayStart, barcode, productName, MAX(orderId), SUM(quantity) AS quantity, SUM(lineFen) AS revenueFen " +
+                    "FROM `rollup_lines` GROUP BY dayStart, barcode)");
+            database.execSQL("INSERT INTO `sales_category_daily` (`dayStart`, `category`, `quantity`, `revenueFen`) " +
+                    "SELECT dayStart, category, SUM(quantity), SUM(lineFen) " +
+                    "FROM `rollup_lines` GROUP BY dayStart, category");
+            database.execSQL("DROP TABLE `rollup_lines`");
+        }
+    };
+
+    // 迁移：版本 6 到 7，添加缩略图路径列
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE product ADD COLUMN thumbnailPath TEXT");
+        }
+    };
+
+    // 迁移：版本 7 到 8，添加检索分词列和商品全文索引 product_fts
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE product ADD COLUMN searchTokens TEXT");
+
+            // 为已有商品生成分词（需要 Java 计算拼音首字母，不能用一条 SQL 完成）
+            try (Cursor cursor = database.query("SELECT id, name, category FROM product")) {
+                while (cursor.moveToNext()) {
+                    String tokens = ProductSearch.buildTokens(cursor.getString(1), cursor.getString(2));
+                    database.execSQL("UPDATE product SET searchTokens = ? WHERE id = ?",
+                            new Object[]{tokens, cursor.getInt(0)});
+                }
+            }
+
+            // 与 Room 为 @Fts4(contentEntity = Product.class) 生成的建表语句和同步触发器一致
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `product_fts` USING FTS4(" +
+                    "`barcode` TEXT, `searchTokens` TEXT, content=`product`)");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_product_fts_BEFORE_UPDATE " +
+                    "BEFORE UPDATE ON `product` BEGIN DELETE FROM `product_fts` WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_product_fts_BEFORE_DELETE " +
+                    "BEFORE DELETE ON `product` BEGIN DELETE FROM `product_fts` WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_product_fts_AFTER_UPDATE " +
+                    "AFTER UPDATE ON `product` BEGIN INSERT INTO `product_fts`(`docid`, `barcode`, `searchTokens`) " +
+                    "VALUES (NEW.`rowid`, NEW.`barcode`, NEW.`searchTokens`); END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_product_fts_AFTER_INSERT " +
+                    "AFTER INSERT ON `product` BEGIN INSERT INTO `product_fts`(`docid`, `barcode`, `searchTokens`) " +
+                    "VALUES (NEW.`rowid`, NEW.`barcode`, NEW.`searchTokens`); END");
+
+            // 用已有数据建立索引
+            database.execSQL("INSERT INTO `product_fts`(`product_fts`) VALUES('rebuild')");
+        }
+    };
+
+    // 迁移：版本 8 到 9，添加超卖记录表
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `stock_shortage` (" +
+                    "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`orderId` INTEGER NOT NULL, " +
+                    "`timestamp` INTEGER NOT NULL, " +
+                    "`barcode` TEXT, " +
+                    "`productName` TEXT, " +
+                    "`quantity` INTEGER NOT NULL, " +
+                    "FOREIGN KEY(`orderId`) REFERENCES `orders`(`orderId`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_stock_shortage_orderId` ON `stock_shortage` (`orderId`)");
+        }
+    };
+
     public static AppDatabase getDatabase(final Context context) {
         if (INSTANCE == null) {
             synchronized (AppDatabase.class) {
                 if (INSTANCE == null) {
+                    QueryMonitor.loadSettings(context);
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(),
                                     AppDatabase.class, "StoreCashierDB")
-                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4)
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9)
+                            // 统计每条 SQL 的耗时，见设置 → 性能诊断
+                            .openHelperFactory(QueryMonitor.wrap(new FrameworkSQLiteOpenHelperFactory()))
                             .build();
                 }
             }
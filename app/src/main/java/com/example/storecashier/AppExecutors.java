@@ -0,0 +1,26 @@
+package com.example.storecashier;
+
+import android.os.Process;
+
+/**
+ * 后台任务分通道调度，避免备份、导入等慢 I/O 阻塞扫码查询
+ * - readExecutor：高优先级读通道，扫码查商品、加载订单明细
+ * - writeExecutor：单线程串行写通道，结算、库存修改、商品增删改
+ * - bulkExecutor：低优先级批量通道，导入导出、云备份恢复、图片拷贝
+ */
+public final class AppExecutors {
+    public static final LaneExecutor readExecutor =
+            new LaneExecutor("scan-read", 2, Process.THREAD_PRIORITY_FOREGROUND);
+    public static final LaneExecutor writeExecutor =
+            new LaneExecutor("db-write", 1, Process.THREAD_PRIORITY_DEFAULT);
+    public static final LaneExecutor bulkExecutor =
+            new LaneExecutor("bulk-io", 2, Process.THREAD_PRIORITY_BACKGROUND);
+
+    private AppExecutors() {}
+
+    public static String getStats() {
+        return readExecutor.getStats() + "\n"
+                + writeExecutor.getStats() + "\n"
+                + bulkExecutor.getStats();
+    }
+}
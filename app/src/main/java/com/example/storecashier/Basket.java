@@ -0,0 +1,100 @@
+package com.example.storecashier;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一单购物车：清单 + 它自己的预写日志（cart_<id>.journal）
+ * 当前收银的单子和挂起的单子都是 Basket，切换时只是换一个引用
+ */
+public class Basket {
+    private final int id;
+    private final CartModel cart = new CartModel();
+    private final CartJournal journal;
+    private boolean journalAttached;
+    // 已提交结算、等待订单落盘，期间不能再修改或取回
+    private boolean checkingOut;
+
+    Basket(int id, File journalFile) {
+        this.id = id;
+        this.journal = new CartJournal(journalFile);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public CartModel getCart() {
+        return cart;
+    }
+
+    public CartJournal getJournal() {
+        return journal;
+    }
+
+    public boolean isCheckingOut() {
+        return checkingOut;
+    }
+
+    void setCheckingOut(boolean checkingOut) {
+        this.checkingOut = checkingOut;
+    }
+
+    // 新建的空单直接开始记录日志
+    void attachJournal() {
+        if (journalAttached) return;
+        journalAttached = true;
+        cart.addObserver(journal);
+    }
+
+    /**
+     * 日志重放 / 快照恢复完成后调用，恢复完成后才开始记录日志，避免恢复过程本身被写进日志
+     * @param journalInSync 日志内容是否已与 items 一致
+     */
+    void onRecovered(List<CartItem> items, boolean journalInSync) {
+        if (cart.isEmpty()) {
+            cart.restore(items);
+        } else {
+            // 恢复完成前已经扫入的商品排在前面
+            ArrayList<CartItem> merged = cart.snapshot();
+            for (CartItem item : items) {
+                if (cart.find(item.getProduct().getBarcode()) == null) merged.add(item);
+            }
+            cart.restore(merged);
+            journalInSync = false;
+        }
+        if (!journalAttached) {
+            attachJournal();
+        }
+        if (!journalInSync) {
+            journal.rewriteAsync(cart.snapshot());
+        }
+    }
+
+    void close() {
+        if (journalAttached) {
+            cart.removeObserver(journal);
+            journalAttached = false;
+        }
+        journal.close();
+    }
+
+    // 该单已结算或作废：停止记录并删除日志
+    void delete() {
+        if (journalAttached) {
+            cart.removeObserver(journal);
+            journalAttached = false;
+        }
+        journal.delete();
+    }
+
+    public String getLabel() {
+        return id + " 号";
+    }
+
+    public String getSummary() {
+        return getLabel() + "：" + cart.getLineCount() + " 种 " + cart.getItemCount() + " 件，"
+                + MoneyUtil.format(cart.getTotalFen()) + "元";
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.storecashier;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 挂单管理：同时保留多单购物车，当前收银的一单为 active，其余为挂起
+ * - 挂单 / 取单只是切换 active 引用，O(1)
+ * - 每单各自的日志保存在 filesDir/cart_<id>.journal，进程被杀后逐单重放恢复
+ * - 结算时该单先脱离 active（收银员可以马上扫下一单），订单落盘后删除
+ * - 每单购物车都挂在 StockLedger 上占用库存，删除或关闭时释放
+ * 仅在主线程访问
+ */
+public class BasketManager {
+    private static final String JOURNAL_PREFIX = "cart_";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    // 挂单功能之前只有一单，日志名为 cart.journal
+    private static final String LEGACY_JOURNAL_NAME = "cart.journal";
+
+    public interface Listener {
+        void onActiveBasketChanged(Basket previous, Basket active);
+    }
+
+    private final File dir;
+    private final StockLedger stockLedger;
+    private final List<Basket> baskets = new ArrayList<>();
+    private Basket active;
+    private int nextId = 1;
+    private Listener listener;
+    // 界面销毁后关闭，之后到达的结算回调不再处理
+    private boolean closed;
+
+    public BasketManager(File dir, StockLedger stockLedger) {
+        this.dir = dir;
+        this.stockLedger = stockLedger;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 按磁盘上的日志建立各单（清单为空，尚未重放），最近修改的一单作为 active
+     * @return 需要重放日志的各单，调用方重放后调用 onRecovered
+     */
+    public List<Basket> loadFromJournals() {
+        File legacy = new File(dir, LEGACY_JOURNAL_NAME);
+        if (legacy.exists()) {
+            legacy.renameTo(journalFile(1));
+        }
+
+        List<Basket> loaded = new ArrayList<>();
+        File[] files = dir.listFiles((d, name) -> name.startsWith(JOURNAL_PREFIX) && name.endsWith(JOURNAL_SUFFIX));
+        File newest = null;
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                int id;
+                try {
+                    id = Integer.parseInt(name.substring(JOURNAL_PREFIX.length(), name.length() - JOURNAL_SUFFIX.length()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                Basket basket = addBasket(id);
+                loaded.add(basket);
+                if (newest == null || file.lastModified() > newest.lastModified()) {
+                    newest = file;
+                    active = basket;
+                }
+            }
+        }
+        if (active == null) {
+            active = createBasket();
+        }
+        return loaded;
+    }
+
+    /**
+     * 配置变更后按保存的 id 重建各单（清单为空），调用方用快照恢复后调用 onRecovered
+     */
+    public List<Basket> restore(int[] ids, int activeId) {
+        List<Basket> restored = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Basket basket = addBasket(id);
+            restored.add(basket);
+            if (id == activeId) active = basket;
+        }
+        if (active == null) {
+            active = createBasket();
+        }
+        return restored;
+    }
+
+    // 恢复后为空的挂单直接丢弃（如商品都已被删除）
+    public void onRecovered(Basket basket, List<CartItem> items, boolean journalInSync) {
+        basket.onRecovered(items, journalInSync);
+        if (basket != active && basket.getCart().isEmpty()) {
+            remove(basket);
+        }
+    }
+
+    public Basket getActive() {
+        return active;
+    }
+
+    // 挂起的单子（不含当前单和正在结算的单）
+    public List<Basket> getParked() {
+        List<Basket> parked = new ArrayList<>();
+        for (Basket basket : baskets) {
+            if (basket != active && !basket.isCheckingOut()) parked.add(basket);
+        }
+        return parked;
+    }
+
+    // 保存状态用：当前单和挂起的单
+    public List<Basket> getOpenBaskets() {
+        List<Basket> open = getParked();
+        open.add(0, active);
+        return open;
+    }
+
+    /**
+     * 挂起当前单并开一张新单
+     * @return 当前单为空时不挂起，返回 false
+     */
+    public boolean park() {
+        if (active.getCart().isEmpty()) return false;
+        setActive(createBasket());
+        return true;
+    }
+
+    // 取回挂单；当前单为空则直接丢弃，否则挂起
+    public void resume(Basket basket) {
+        if (basket == active || basket.isCheckingOut()) return;
+        Basket previous = active;
+        setActive(basket);
+        if (previous.getCart().isEmpty()) {
+            remove(previous);
+        }
+    }
+
+    /**
+     * 提交结算：该单不再可编辑，若是当前单则换一张新单，收银员可以继续扫下一位顾客
+     */
+    public void beginCheckout(Basket basket) {
+        basket.setCheckingOut(true);
+        if (basket == active) {
+            setActive(createBasket());
+        }
+    }
+
+    // 订单已落盘：删除该单及其日志；已关闭或该单已不在本管理器中时忽略
+    public void finishCheckout(Basket basket) {
+        if (closed || !baskets.contains(basket)) return;
+        remove(basket);
+    }
+
+    // 作废挂单（当前单只清空）
+    public void discard(Basket basket) {
+        if (basket == active) {
+            basket.getCart().clear();
+            return;
+        }
+        remove(basket);
+    }
+
+    public void close() {
+        closed = true;
+        for (Basket basket : baskets) {
+            stockLedger.detach(basket.getCart());
+            basket.close();
+        }
+    }
+
+    private void setActive(Basket basket) {
+        Basket previous = active;
+        active = basket;
+        if (listener != null) {
+            listener.onActiveBasketChanged(previous, active);
+        }
+    }
+
+    private Basket createBasket() {
+        Basket basket = addBasket(nextId);
+        basket.attachJournal();
+        return basket;
+    }
+
+    private Basket addBasket(int id) {
+        Basket basket = new Basket(id, journalFile(id));
+        stockLedger.attach(basket.getCart());
+        baskets.add(basket);
+        nextId = Math.max(nextId, id + 1);
+        return basket;
+    }
+
+    private void remove(Basket basket) {
+        baskets.remove(basket);
+        stockLedger.detach(basket.getCart());
+        basket.delete();
+    }
+
+    private File journalFile(int id) {
+        return new File(dir, JOURNAL_PREFIX + id + JOURNAL_SUFFIX);
+    }
+}
@@ -6,21 +6,23 @@ import android.os.Parcelable;
 public class CartItem implements Parcelable {
     private Product product;
     private int quantity;
+    private long unitPriceFen; // 加入购物车时锁定的单价（分）
 
     public CartItem(Product product) {
-        this.product = product;
-        this.quantity = 1; // 默认数量为1
+        this(product, 1); // 默认数量为1
     }
 
     public CartItem(Product product, int quantity) {
         this.product = product;
         this.quantity = quantity;
+        this.unitPriceFen = MoneyUtil.toFen(product.getPrice());
     }
 
     // Parcelable 构造方法
     protected CartItem(Parcel in) {
         product = in.readParcelable(Product.class.getClassLoader());
         quantity = in.readInt();
+        unitPriceFen = MoneyUtil.toFen(product.getPrice());
     }
 
     public static final Creator<CartItem> CREATOR = new Creator<CartItem>() {
@@ -44,19 +46,18 @@ public class CartItem implements Parcelable {
         return quantity;
     }
 
+    public long getUnitPriceFen() {
+        return unitPriceFen;
+    }
+
     // Setter method
     public void setQuantity(int quantity) {
         this.quantity = quantity;
     }
 
-    // 增加数量
-    public void incrementQuantity() {
-        this.quantity++;
-    }
-
-    // 计算单项总价
-    public double getItemTotal() {
-        return product.getPrice() * quantity;
+    // 计算单项总价（分）
+    public long getItemTotalFen() {
+        return unitPriceFen * quantity;
     }
 
     // Parcelable 方法
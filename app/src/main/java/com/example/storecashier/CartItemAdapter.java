@@ -16,21 +16,49 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 
-import java.io.File;
 import java.util.List;
 
-public class CartItemAdapter extends RecyclerView.Adapter<CartItemAdapter.ViewHolder> {
+public class CartItemAdapter extends RecyclerView.Adapter<CartItemAdapter.ViewHolder> implements CartModel.Observer {
 
-    private final List<CartItem> cartItems;
-    private final OnCartItemChangeListener listener;
+    private CartModel cart;
 
-    public interface OnCartItemChangeListener {
-        void onCartUpdated();
+    public CartItemAdapter(CartModel cart) {
+        this.cart = cart;
+        cart.addObserver(this);
     }
 
-    public CartItemAdapter(List<CartItem> cartItems, OnCartItemChangeListener listener) {
-        this.cartItems = cartItems;
-        this.listener = listener;
+    // 切换挂单：改为显示另一单购物车
+    public void setCart(CartModel newCart) {
+        if (newCart == cart) return;
+        cart.removeObserver(this);
+        cart = newCart;
+        cart.addObserver(this);
+        notifyDataSetChanged();
+    }
+
+    public CartModel getCart() {
+        return cart;
+    }
+
+    // 购物车的每次修改都精确映射为对应行的刷新
+    @Override
+    public void onLineInserted(int position, CartItem item) {
+        notifyItemInserted(position);
+    }
+
+    @Override
+    public void onLineChanged(int position, CartItem item, int oldQuantity) {
+        notifyItemChanged(position);
+    }
+
+    @Override
+    public void onLineRemoved(int position, CartItem item) {
+        notifyItemRemoved(position);
+    }
+
+    @Override
+    public void onCleared(List<CartItem> removedItems) {
+        notifyItemRangeRemoved(0, removedItems.size());
     }
 
     @NonNull
@@ -42,43 +70,38 @@ public class CartItemAdapter extends RecyclerView.Adapter<CartItemAdapter.ViewHo
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        CartItem cartItem = cartItems.get(position);
+        CartItem cartItem = cart.get(position);
         Product product = cartItem.getProduct();
 
         holder.tvName.setText(product.getName());
-        holder.tvPrice.setText(String.format("单价：%.2f元", product.getPrice()));
+        holder.tvPrice.setText("单价：" + MoneyUtil.format(cartItem.getUnitPriceFen()) + "元");
         holder.tvQuantity.setText(String.valueOf(cartItem.getQuantity()));
-        holder.tvItemTotal.setText(String.format("小计：%.2f元", cartItem.getItemTotal()));
+        holder.tvItemTotal.setText("小计：" + MoneyUtil.format(cartItem.getItemTotalFen()) + "元");
 
         // 加载图片
         Glide.with(holder.itemView.getContext())
-                .load(product.getImagePath() != null ? new File(product.getImagePath()) : null)
+                .load(ImagePipeline.listImageFile(product))
                 .placeholder(R.drawable.default_img)
                 .error(R.drawable.default_img)
                 .into(holder.ivImage);
 
-        holder.btnPlus.setOnClickListener(v -> {
-            cartItem.incrementQuantity();
-            notifyItemChanged(holder.getAdapterPosition());
-            if (listener != null) listener.onCartUpdated();
-        });
+        String barcode = product.getBarcode();
+        holder.btnPlus.setOnClickListener(v -> cart.increment(barcode));
 
         holder.btnMinus.setOnClickListener(v -> {
             int currentQuantity = cartItem.getQuantity();
             if (currentQuantity > 1) {
-                cartItem.setQuantity(currentQuantity - 1);
-                notifyItemChanged(holder.getAdapterPosition());
-                if (listener != null) listener.onCartUpdated();
+                cart.setQuantity(barcode, currentQuantity - 1);
             } else {
-                showRemoveDialog(holder.itemView, holder.getAdapterPosition());
+                showRemoveDialog(holder.itemView, barcode);
             }
         });
 
-        holder.tvQuantity.setOnClickListener(v -> showManualInputDialog(holder.itemView, holder.getAdapterPosition()));
+        holder.tvQuantity.setOnClickListener(v -> showManualInputDialog(holder.itemView, cartItem));
     }
 
-    private void showManualInputDialog(View view, int position) {
-        CartItem cartItem = cartItems.get(position);
+    private void showManualInputDialog(View view, CartItem cartItem) {
+        String barcode = cartItem.getProduct().getBarcode();
         EditText etInput = new EditText(view.getContext());
         etInput.setInputType(InputType.TYPE_CLASS_NUMBER);
         etInput.setText(String.valueOf(cartItem.getQuantity()));
@@ -96,11 +119,9 @@ public class CartItemAdapter extends RecyclerView.Adapter<CartItemAdapter.ViewHo
                     try {
                         int newQty = Integer.parseInt(input);
                         if (newQty > 0) {
-                            cartItem.setQuantity(newQty);
-                            notifyItemChanged(position);
-                            if (listener != null) listener.onCartUpdated();
+                            cart.setQuantity(barcode, newQty);
                         } else if (newQty == 0) {
-                            showRemoveDialog(view, position);
+                            showRemoveDialog(view, barcode);
                         } else {
                             Toast.makeText(view.getContext(), "请输入有效的数量", Toast.LENGTH_SHORT).show();
                         }
@@ -112,15 +133,12 @@ public class CartItemAdapter extends RecyclerView.Adapter<CartItemAdapter.ViewHo
                 .show();
     }
 
-    private void showRemoveDialog(View view, int position) {
+    private void showRemoveDialog(View view, String barcode) {
         new AlertDialog.Builder(view.getContext())
                 .setTitle("确认移除")
                 .setMessage("确定要从购物车中移除此商品吗？")
                 .setPositiveButton("移除", (dialog, which) -> {
-                    cartItems.remove(position);
-                    notifyItemRemoved(position);
-                    notifyItemRangeChanged(position, cartItems.size());
-                    if (listener != null) listener.onCartUpdated();
+                    cart.remove(barcode);
                 })
                 .setNegativeButton("取消", null)
                 .show();
@@ -128,7 +146,7 @@ public class CartItemAdapter extends RecyclerView.Adapter<CartItemAdapter.ViewHo
 
     @Override
     public int getItemCount() {
-        return cartItems.size();
+        return cart.getLineCount();
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
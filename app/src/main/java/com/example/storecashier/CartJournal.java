@@ -0,0 +1,230 @@
+package com.example.storecashier;
+
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * 购物车预写日志：每次加购、改数量、删行追加一条很短的记录，进程被杀后重放日志恢复当前清单
+ * - 记录格式（制表符分隔，每行一条）：A 条码 数量 单价(分) / Q 条码 数量 / R 条码
+ * - 写入在串行写通道上执行，只追加并 flush 到系统缓存，不逐条 fsync（进程被杀不会丢，断电可能丢最后几条）
+ * - 清空（结算、手动清空）时截断文件；恢复时记录数远多于商品行数则重写为每行一条 A 记录
+ */
+public class CartJournal implements CartModel.Observer {
+    private static final String TAG = "CartJournal";
+    // 记录数超过 行数 * 2 + COMPACT_SLACK 时压缩
+    private static final int COMPACT_SLACK = 16;
+
+    // 重放得到的商品行
+    public static class Entry {
+        private final String barcode;
+        private final int quantity;
+        private final long unitPriceFen;
+
+        Entry(String barcode, int quantity, long unitPriceFen) {
+            this.barcode = barcode;
+            this.quantity = quantity;
+            this.unitPriceFen = unitPriceFen;
+        }
+
+        // 在主线程从商品行取值，之后可交给后台线程
+        public static Entry of(CartItem item) {
+            return new Entry(item.getProduct().getBarcode(), item.getQuantity(), item.getUnitPriceFen());
+        }
+
+        public String getBarcode() { return barcode; }
+        public int getQuantity() { return quantity; }
+        public long getUnitPriceFen() { return unitPriceFen; }
+    }
+
+    private final File file;
+    private final Executor executor;
+
+    // 以下字段只在 executor 上访问
+    private Writer writer;
+    private int recordCount;
+
+    public CartJournal(File file) {
+        this(file, AppExecutors.writeExecutor);
+    }
+
+    public CartJournal(File file, Executor executor) {
+        this.file = file;
+        this.executor = executor;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void onLineInserted(int position, CartItem item) {
+        append("A\t" + item.getProduct().getBarcode() + "\t" + item.getQuantity() + "\t" + item.getUnitPriceFen());
+    }
+
+    @Override
+    public void onLineChanged(int position, CartItem item, int oldQuantity) {
+        append("Q\t" + item.getProduct().getBarcode() + "\t" + item.getQuantity());
+    }
+
+    @Override
+    public void onLineRemoved(int position, CartItem item) {
+        append("R\t" + item.getProduct().getBarcode());
+    }
+
+    @Override
+    public void onCleared(List<CartItem> removedItems) {
+        executor.execute(this::truncate);
+    }
+
+    // 在主线程拼好记录，只把写文件交给后台
+    private void append(String record) {
+        executor.execute(() -> {
+            try {
+                if (writer == null) {
+                    writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+                }
+                writer.write(record);
+                writer.write('\n');
+                writer.flush();
+                recordCount++;
+            } catch (IOException e) {
+                Log.w(TAG, "Append failed: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 重放日志，需在 executor 上调用（保证与追加写入有序）
+     * @return 按显示顺序（最新加入在前）的商品行
+     */
+    public List<Entry> replay() {
+        Map<String, Entry> lines = new LinkedHashMap<>();
+        recordCount = 0;
+        if (!file.exists()) return new ArrayList<>();
+
+        String content;
+        try (FileInputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) file.length());
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+            }
+            content = new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Log.w(TAG, "Read failed, starting with an empty cart: " + e.getMessage());
+            return new ArrayList<>();
+        }
+        // 最后一个换行之后的内容是写了一半的记录，丢弃
+        int end = content.lastIndexOf('\n');
+        for (String record : content.substring(0, end + 1).split("\n")) {
+            if (record.isEmpty()) continue;
+            recordCount++;
+            String[] fields = record.split("\t");
+            try {
+                switch (fields[0]) {
+                    case "A":
+                        lines.remove(fields[1]);
+                        lines.put(fields[1], new Entry(fields[1], Integer.parseInt(fields[2]), Long.parseLong(fields[3])));
+                        break;
+                    case "Q": {
+                        Entry entry = lines.get(fields[1]);
+                        if (entry != null) {
+                            lines.put(fields[1], new Entry(fields[1], Integer.parseInt(fields[2]), entry.getUnitPriceFen()));
+                        }
+                        break;
+                    }
+                    case "R":
+                        lines.remove(fields[1]);
+                        break;
+                    default:
+                        Log.w(TAG, "Unknown record: " + record);
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Bad record skipped: " + record);
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(lines.values());
+        Collections.reverse(entries);
+        return entries;
+    }
+
+    /**
+     * 重放后调用：记录数远多于实际行数（反复改数量/删行）时重写日志，保证下次恢复的开销只与行数相关
+     * 需在 executor 上调用，items 为显示顺序
+     */
+    public void compactIfNeeded(List<Entry> entries) {
+        if (recordCount > entries.size() * 2 + COMPACT_SLACK) {
+            rewrite(entries);
+        }
+    }
+
+    // 用当前清单重写日志（先写临时文件再替换），entries 为显示顺序，需在 executor 上调用
+    public void rewrite(List<Entry> entries) {
+        closeWriter();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                Entry entry = entries.get(i);
+                out.write("A\t" + entry.getBarcode() + "\t" + entry.getQuantity() + "\t" + entry.getUnitPriceFen() + "\n");
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Compaction failed: " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        if (tmp.renameTo(file)) {
+            recordCount = entries.size();
+        } else {
+            tmp.delete();
+        }
+    }
+
+    private void truncate() {
+        closeWriter();
+        file.delete();
+        recordCount = 0;
+    }
+
+    // 在主线程调用：用当前清单（显示顺序）重写日志
+    public void rewriteAsync(List<CartItem> items) {
+        List<Entry> entries = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            entries.add(Entry.of(item));
+        }
+        executor.execute(() -> rewrite(entries));
+    }
+
+    public void close() {
+        executor.execute(this::closeWriter);
+    }
+
+    // 删除日志文件（排在已提交的追加写入之后执行）
+    public void delete() {
+        executor.execute(this::truncate);
+    }
+
+    private void closeWriter() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+        }
+        writer = null;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.storecashier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 购物车模型：维护商品行，并随每次修改增量更新合计金额（分）、行数和件数
+ * - 条码 → 行下标 的索引，按条码查找/加数量为 O(1)
+ * - 内部按加入顺序追加存储，显示时倒序（最新在最上），新商品“置顶”也是 O(1)
+ * - 每次修改通过 Observer 发出精确的插入/变更/删除通知
+ * 仅在主线程访问
+ */
+public class CartModel {
+
+    public interface Observer {
+        default void onLineInserted(int position, CartItem item) {}
+        default void onLineChanged(int position, CartItem item, int oldQuantity) {}
+        default void onLineRemoved(int position, CartItem item) {}
+        default void onCleared(List<CartItem> removedItems) {}
+        // 任意修改之后都会回调，用于刷新合计
+        default void onCartChanged() {}
+    }
+
+    // 按加入顺序存储，显示位置 = size - 1 - 下标
+    private final List<CartItem> lines = new ArrayList<>();
+    private final Map<String, Integer> indexByBarcode = new HashMap<>();
+    private final List<Observer> observers = new ArrayList<>();
+
+    private long totalFen = 0;
+    private int itemCount = 0;
+
+    public void addObserver(Observer observer) {
+        observers.add(observer);
+    }
+
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    // 按显示位置取商品行（0 为最新加入）
+    public CartItem get(int position) {
+        return lines.get(lines.size() - 1 - position);
+    }
+
+    // 商品行数（不同商品数）
+    public int getLineCount() {
+        return lines.size();
+    }
+
+    // 商品总件数
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public long getTotalFen() {
+        return totalFen;
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    public CartItem find(String barcode) {
+        Integer index = indexByBarcode.get(barcode);
+        return index == null ? null : lines.get(index);
+    }
+
+    // 条码对应的显示位置，不存在返回 -1
+    public int positionOf(String barcode) {
+        Integer index = indexByBarcode.get(barcode);
+        return index == null ? -1 : lines.size() - 1 - index;
+    }
+
+    /**
+     * 扫到一件商品：已在购物车则数量 +1，否则作为新行置顶
+     * @return 对应的商品行
+     */
+    public CartItem add(Product product) {
+        CartItem existing = find(product.getBarcode());
+        if (existing != null) {
+            setQuantity(product.getBarcode(), existing.getQuantity() + 1);
+            return existing;
+        }
+        CartItem item = new CartItem(product);
+        insertFirst(item);
+        dispatchChanged();
+        return item;
+    }
+
+    public void increment(String barcode) {
+        CartItem item = find(barcode);
+        if (item != null) {
+            setQuantity(barcode, item.getQuantity() + 1);
+        }
+    }
+
+    public void setQuantity(String barcode, int quantity) {
+        Integer index = indexByBarcode.get(barcode);
+        if (index == null) return;
+        CartItem item = lines.get(index);
+        int oldQuantity = item.getQuantity();
+        if (oldQuantity == quantity) return;
+
+        item.setQuantity(quantity);
+        int delta = quantity - oldQuantity;
+        totalFen += delta * item.getUnitPriceFen();
+        itemCount += delta;
+
+        int position = lines.size() - 1 - index;
+        for (Observer observer : observers) {
+            observer.onLineChanged(position, item, oldQuantity);
+        }
+        dispatchChanged();
+    }
+
+    public CartItem remove(String barcode) {
+        Integer index = indexByBarcode.remove(barcode);
+        if (index == null) return null;
+
+        int position = lines.size() - 1 - index;
+        CartItem item = lines.remove((int) index);
+        // 只需修正被移除行之后（更新加入的）商品的下标
+        for (int i = index; i < lines.size(); i++) {
+            indexByBarcode.put(lines.get(i).getProduct().getBarcode(), i);
+        }
+        totalFen -= item.getItemTotalFen();
+        itemCount -= item.getQuantity();
+
+        for (Observer observer : observers) {
+            observer.onLineRemoved(position, item);
+        }
+        dispatchChanged();
+        return item;
+    }
+
+    public void clear() {
+        if (lines.isEmpty()) return;
+        List<CartItem> removedItems = snapshot();
+        lines.clear();
+        indexByBarcode.clear();
+        totalFen = 0;
+        itemCount = 0;
+
+        for (Observer observer : observers) {
+            observer.onCleared(removedItems);
+        }
+        dispatchChanged();
+    }
+
+    // 从保存的状态恢复（savedItems 为显示顺序）
+    public void restore(List<CartItem> savedItems) {
+        clear();
+        for (int i = savedItems.size() - 1; i >= 0; i--) {
+            insertFirst(savedItems.get(i));
+        }
+        dispatchChanged();
+    }
+
+    // 当前商品行的副本（按显示顺序）
+    public ArrayList<CartItem> snapshot() {
+        ArrayList<CartItem> items = new ArrayList<>(lines.size());
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            items.add(lines.get(i));
+        }
+        return items;
+    }
+
+    private void insertFirst(CartItem item) {
+        indexByBarcode.put(item.getProduct().getBarcode(), lines.size());
+        lines.add(item);
+        totalFen += item.getItemTotalFen();
+        itemCount += item.getQuantity();
+
+        for (Observer observer : observers) {
+            observer.onLineInserted(0, item);
+        }
+    }
+
+    private void dispatchChanged() {
+        for (Observer observer : observers) {
+            observer.onCartChanged();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.storecashier;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.List;
+
+/**
+ * 购物车的精简快照，用于 onSaveInstanceState：每行只保存商品 id、数量和锁定单价（分）
+ * 恢复时按 id 从数据库重新查出商品（见 ProductViewModel.rehydrateCart），
+ * 相比逐行写入完整 Product，大购物车的 Bundle 体积小得多，不易触发 TransactionTooLargeException
+ */
+public class CartSnapshot implements Parcelable {
+    // 均为显示顺序（最新加入在前）
+    private final int[] productIds;
+    private final int[] quantities;
+    private final long[] unitPriceFen;
+
+    private CartSnapshot(int[] productIds, int[] quantities, long[] unitPriceFen) {
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.unitPriceFen = unitPriceFen;
+    }
+
+    // items 为显示顺序，需在主线程调用
+    public static CartSnapshot of(List<CartItem> items) {
+        int size = items.size();
+        int[] productIds = new int[size];
+        int[] quantities = new int[size];
+        long[] unitPriceFen = new long[size];
+        for (int i = 0; i < size; i++) {
+            CartItem item = items.get(i);
+            productIds[i] = item.getProduct().getId();
+            quantities[i] = item.getQuantity();
+            unitPriceFen[i] = item.getUnitPriceFen();
+        }
+        return new CartSnapshot(productIds, quantities, unitPriceFen);
+    }
+
+    public int size() {
+        return productIds.length;
+    }
+
+    public int getProductId(int index) {
+        return productIds[index];
+    }
+
+    public int getQuantity(int index) {
+        return quantities[index];
+    }
+
+    public long getUnitPriceFen(int index) {
+        return unitPriceFen[index];
+    }
+
+    protected CartSnapshot(Parcel in) {
+        productIds = in.createIntArray();
+        quantities = in.createIntArray();
+        unitPriceFen = in.createLongArray();
+    }
+
+    public static final Creator<CartSnapshot> CREATOR = new Creator<CartSnapshot>() {
+        @Override
+        public CartSnapshot createFromParcel(Parcel in) {
+            return new CartSnapshot(in);
+        }
+
+        @Override
+        public CartSnapshot[] newArray(int size) {
+            return new CartSnapshot[size];
+        }
+    };
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeIntArray(productIds);
+        dest.writeIntArray(quantities);
+        dest.writeLongArray(unitPriceFen);
+    }
+}
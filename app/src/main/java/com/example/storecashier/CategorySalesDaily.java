@@ -0,0 +1,32 @@
+package com.example.storecashier;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+// 按天、按分类汇总的销量（未分类记为空字符串）
+@Entity(tableName = "sales_category_daily", primaryKeys = {"dayStart", "category"})
+public class CategorySalesDaily {
+    private long dayStart;
+    @NonNull
+    private String category;
+    private int quantity;
+    private long revenueFen;
+
+    public CategorySalesDaily(long dayStart, @NonNull String category, int quantity, long revenueFen) {
+        this.dayStart = dayStart;
+        this.category = category;
+        this.quantity = quantity;
+        this.revenueFen = revenueFen;
+    }
+
+    // Getter and Setter
+    public long getDayStart() { return dayStart; }
+    public void setDayStart(long dayStart) { this.dayStart = dayStart; }
+    @NonNull
+    public String getCategory() { return category; }
+    public void setCategory(@NonNull String category) { this.category = category; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public long getRevenueFen() { return revenueFen; }
+    public void setRevenueFen(long revenueFen) { this.revenueFen = revenueFen; }
+}
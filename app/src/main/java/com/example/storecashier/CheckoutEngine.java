@@ -0,0 +1,128 @@
+package com.example.storecashier;
+
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 结算引擎：在同一个事务中写入订单、订单明细、扣减库存并累加销售汇总
+ * 库存使用 stock = stock - ? 相对更新，多台收银同时结算同一商品也不会互相覆盖；
+ * 扣减语句只编译一次，每行仅重新绑定参数执行
+ * 扣减前在事务内核对库存：库存扣到 0 为止，不会变成负数，不足的件数在同一事务中写入 stock_shortage 表待盘点
+ */
+public class CheckoutEngine {
+    private static final String SQL_DECREMENT_STOCK =
+            "UPDATE product SET stock = MAX(stock - ?, 0) WHERE barcode = ?";
+    // SQLite 单条语句的参数上限为 999，IN 查询按批拆分
+    private static final int MAX_BIND_ARGS = 500;
+
+    private final AppDatabase db;
+    private final OrderDao orderDao;
+    private final ProductDao productDao;
+    private final SalesRollup salesRollup;
+
+    public CheckoutEngine(AppDatabase db) {
+        this.db = db;
+        this.orderDao = db.orderDao();
+        this.productDao = db.productDao();
+        this.salesRollup = new SalesRollup(db);
+    }
+
+    /**
+     * 执行结算，必须在后台线程调用
+     * @return 订单号、每个商品扣减后的库存及库存不足的商品
+     */
+    public CheckoutResult checkout(List<CartItem> cartItems, double totalAmount) {
+        return checkout(0, System.currentTimeMillis(), cartItems, totalAmount);
+    }
+
+    /**
+     * 使用预先分配的订单号结算（见 CheckoutOutbox），该订单已入库时直接返回，不会重复扣减库存
+     * @param assignedOrderId 为 0 时由数据库生成
+     */
+    public CheckoutResult checkout(long assignedOrderId, long timestamp, List<CartItem> cartItems, double totalAmount) {
+        return db.runInTransaction(() -> {
+            if (assignedOrderId != 0 && orderDao.countOrder(assignedOrderId) > 0) {
+                return new CheckoutResult(assignedOrderId, new LinkedHashMap<>());
+            }
+
+            // 1. 创建并插入订单
+            Order order = new Order(timestamp, totalAmount);
+            order.setOrderId(assignedOrderId);
+            long orderId = orderDao.insertOrder(order);
+
+            // 2. 生成明细快照，同一条码的数量合并后再扣减
+            List<OrderItem> orderItems = new ArrayList<>(cartItems.size());
+            Map<String, Integer> quantities = new LinkedHashMap<>();
+            Map<String, String> names = new HashMap<>();
+            for (CartItem cartItem : cartItems) {
+                Product product = cartItem.getProduct();
+                orderItems.add(new OrderItem(
+                        orderId,
+                        product.getBarcode(),
+                        product.getName(),
+                        product.getPrice(),
+                        cartItem.getQuantity()
+                ));
+                names.put(product.getBarcode(), product.getName());
+                Integer merged = quantities.get(product.getBarcode());
+                quantities.put(product.getBarcode(),
+                        merged == null ? cartItem.getQuantity() : merged + cartItem.getQuantity());
+            }
+            orderDao.insertOrderItems(orderItems);
+
+            // 3. 核对库存：事务内读到的库存即扣减前的准确值，据此得出扣减后的库存和不足的件数
+            Map<String, Integer> stockByBarcode = new HashMap<>();
+            List<String> barcodes = new ArrayList<>(quantities.keySet());
+            for (int from = 0; from < barcodes.size(); from += MAX_BIND_ARGS) {
+                List<String> batch = barcodes.subList(from, Math.min(from + MAX_BIND_ARGS, barcodes.size()));
+                for (StockLevel level : productDao.getStockLevels(batch)) {
+                    stockByBarcode.put(level.getBarcode(), level.getStock());
+                }
+            }
+            // 保持购物车顺序
+            Map<String, Integer> resultingStock = new LinkedHashMap<>();
+            Map<String, Integer> shortages = new LinkedHashMap<>();
+            List<StockShortage> shortageRecords = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                Integer stock = stockByBarcode.get(entry.getKey());
+                // 商品已被删除
+                if (stock == null) continue;
+                int remaining = stock - entry.getValue();
+                if (remaining < 0) {
+                    int shortage = Math.min(-remaining, entry.getValue());
+                    shortages.put(entry.getKey(), shortage);
+                    shortageRecords.add(new StockShortage(orderId, timestamp, entry.getKey(),
+                            names.get(entry.getKey()), shortage));
+                }
+                resultingStock.put(entry.getKey(), Math.max(remaining, 0));
+            }
+
+            // 4. 批量相对扣减库存
+            SupportSQLiteStatement statement = db.compileStatement(SQL_DECREMENT_STOCK);
+            try {
+                for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                    statement.bindLong(1, entry.getValue());
+                    statement.bindString(2, entry.getKey());
+                    statement.executeUpdateDelete();
+                    statement.clearBindings();
+                }
+            } finally {
+                statement.close();
+            }
+
+            if (!shortageRecords.isEmpty()) {
+                orderDao.insertShortages(shortageRecords);
+            }
+
+            // 5. 累加销售汇总
+            salesRollup.recordOrder(order.getTimestamp(), cartItems);
+
+            return new CheckoutResult(orderId, resultingStock, shortages);
+        });
+    }
+}
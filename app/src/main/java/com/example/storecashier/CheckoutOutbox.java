@@ -0,0 +1,311 @@
+package com.example.storecashier;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 异步结算发件箱：确认结算后先把订单（预分配订单号）落盘到 filesDir/outbox/<订单号>.json，
+ * 收银台立即清空迎接下一位顾客，数据库事务在写通道上后台提交，成功后删除文件
+ * - 落盘与删除该单的购物车日志在同一个写通道任务中完成，进程被杀后要么还在购物车里，要么在发件箱里
+ * - 启动时重新提交发件箱中的订单；订单号预先分配，已经入库的订单不会重复扣库存
+ * - 提交失败按指数退避重试，失败状态通过 getStatus() 显示在结算页
+ * - 入库前订单的件数一直记在 StockLedger 中占用库存，入库并刷新缓存库存后释放
+ * 所有文件和数据库操作都在写通道上执行
+ */
+public class CheckoutOutbox {
+    private static final String TAG = "CheckoutOutbox";
+    private static final String DIR_NAME = "outbox";
+    private static final long FIRST_RETRY_DELAY_MS = 1000;
+    private static final long MAX_RETRY_DELAY_MS = 60_000;
+
+    // 落盘的订单，字段供 Gson 序列化
+    public static class PendingCheckout {
+        long orderId;
+        long timestamp;
+        long totalFen;
+        // 该单购物车日志的路径，日志删除后置为 null 并重写本文件；启动时仍不为 null 说明删除前进程被杀，需一并删除
+        String journalPath;
+        List<Line> lines;
+
+        transient int attempts;
+        transient String lastError;
+
+        public long getOrderId() { return orderId; }
+        public long getTotalFen() { return totalFen; }
+        public int getAttempts() { return attempts; }
+        public String getLastError() { return lastError; }
+
+        List<CartItem> toCartItems() {
+            List<CartItem> items = new ArrayList<>(lines.size());
+            for (Line line : lines) {
+                Product product = new Product(line.barcode, line.name, MoneyUtil.toYuan(line.unitPriceFen), 0, line.category, null);
+                items.add(new CartItem(product, line.quantity));
+            }
+            return items;
+        }
+
+        // 条码 → 件数
+        Map<String, Integer> quantities() {
+            Map<String, Integer> quantities = new HashMap<>();
+            for (Line line : lines) {
+                Integer merged = quantities.get(line.barcode);
+                quantities.put(line.barcode, merged == null ? line.quantity : merged + line.quantity);
+            }
+            return quantities;
+        }
+    }
+
+    static class Line {
+        String barcode;
+        String name;
+        String category;
+        long unitPriceFen;
+        int quantity;
+    }
+
+    // 结算页状态面板显示的内容
+    public static class Status {
+        private final int pendingCount;
+        private final List<PendingCheckout> failed;
+
+        Status(int pendingCount, List<PendingCheckout> failed) {
+            this.pendingCount = pendingCount;
+            this.failed = failed;
+        }
+
+        public int getPendingCount() { return pendingCount; }
+        public List<PendingCheckout> getFailed() { return failed; }
+    }
+
+    public interface OnQueuedListener {
+        // 在主线程回调：订单已落盘，收银台可以删除该单；回调与事务提交互不影响
+        void onQueued(long orderId);
+    }
+
+    public interface OnCommittedListener {
+        // 在后台线程回调
+        void onCommitted(CheckoutResult result);
+    }
+
+    private final File dir;
+    private final CheckoutEngine checkoutEngine;
+    private final OrderDao orderDao;
+    private final StockLedger stockLedger;
+    private final OnCommittedListener committedListener;
+    private final Gson gson = new Gson();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MutableLiveData<Status> status = new MutableLiveData<>(new Status(0, new ArrayList<>()));
+
+    // 以下字段只在写通道上访问
+    private final Map<Long, PendingCheckout> pending = new LinkedHashMap<>();
+    private long lastOrderId = -1;
+
+    public CheckoutOutbox(File filesDir, AppDatabase db, CheckoutEngine checkoutEngine, StockLedger stockLedger,
+                          OnCommittedListener committedListener) {
+        this.dir = new File(filesDir, DIR_NAME);
+        this.checkoutEngine = checkoutEngine;
+        this.orderDao = db.orderDao();
+        this.stockLedger = stockLedger;
+        this.committedListener = committedListener;
+    }
+
+    public LiveData<Status> getStatus() {
+        return status;
+    }
+
+    /**
+     * 启动时调用：重新提交上次未入库的订单
+     * 排在写通道最前面执行，先于购物车日志的重放，残留的购物车日志会在重放前被删除
+     */
+    public void start() {
+        AppExecutors.writeExecutor.execute(() -> {
+            ensureOrderIdSeeded();
+            File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
+            if (files == null) return;
+            for (File file : files) {
+                PendingCheckout checkout;
+                try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                    checkout = gson.fromJson(reader, PendingCheckout.class);
+                } catch (IOException | RuntimeException e) {
+                    Log.w(TAG, "Unreadable outbox entry skipped: " + file.getName() + ", " + e.getMessage());
+                    continue;
+                }
+                if (checkout == null || checkout.lines == null) continue;
+                if (checkout.journalPath != null) {
+                    deleteJournal(checkout);
+                }
+                Log.d(TAG, "Resubmitting order " + checkout.orderId);
+                pending.put(checkout.orderId, checkout);
+                stockLedger.holdOrder(checkout.orderId, checkout.quantities());
+                AppExecutors.writeExecutor.execute(() -> commit(checkout));
+            }
+            publishStatus();
+        });
+    }
+
+    /**
+     * 提交一单：在主线程取好清单内容，落盘后回调 onQueued，随后在写通道上提交事务
+     * @param items 显示顺序
+     * @param journal 该单的购物车日志，落盘后删除
+     */
+    public void submit(List<CartItem> items, long totalFen, CartJournal journal, OnQueuedListener listener) {
+        List<Line> lines = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            Line line = new Line();
+            line.barcode = item.getProduct().getBarcode();
+            line.name = item.getProduct().getName();
+            line.category = item.getProduct().getCategory();
+            line.unitPriceFen = item.getUnitPriceFen();
+            line.quantity = item.getQuantity();
+            lines.add(line);
+        }
+        long timestamp = System.currentTimeMillis();
+
+        AppExecutors.writeExecutor.execute(() -> {
+            ensureOrderIdSeeded();
+            PendingCheckout checkout = new PendingCheckout();
+            checkout.orderId = ++lastOrderId;
+            checkout.timestamp = timestamp;
+            checkout.totalFen = totalFen;
+            checkout.journalPath = journal.getFile().getPath();
+            checkout.lines = lines;
+
+            boolean written = false;
+            try {
+                write(checkout);
+                written = true;
+            } catch (IOException e) {
+                // 存储异常时仍在内存中提交并重试，不阻塞收银
+                Log.w(TAG, "Outbox write failed, committing from memory: " + e.getMessage());
+            }
+            if (written) {
+                deleteJournal(checkout);
+            }
+            pending.put(checkout.orderId, checkout);
+            // 先占用再回调，收银台删除该单时库存不会有一瞬间被算作可用
+            stockLedger.holdOrder(checkout.orderId, checkout.quantities());
+            publishStatus();
+            long orderId = checkout.orderId;
+            mainHandler.post(() -> listener.onQueued(orderId));
+            commit(checkout);
+        });
+    }
+
+    // 立即重试所有失败的订单
+    public void retryFailed() {
+        AppExecutors.writeExecutor.execute(() -> {
+            for (PendingCheckout checkout : new ArrayList<>(pending.values())) {
+                if (checkout.lastError != null) {
+                    commit(checkout);
+                }
+            }
+        });
+    }
+
+    private void commit(PendingCheckout checkout) {
+        if (!pending.containsKey(checkout.orderId)) return;
+        try {
+            CheckoutResult result = checkoutEngine.checkout(checkout.orderId, checkout.timestamp,
+                    checkout.toCartItems(), MoneyUtil.toYuan(checkout.totalFen));
+            pending.remove(checkout.orderId);
+            entryFile(checkout.orderId).delete();
+            publishStatus();
+            committedListener.onCommitted(result);
+            stockLedger.releaseOrder(checkout.orderId);
+        } catch (RuntimeException e) {
+            checkout.attempts++;
+            checkout.lastError = e.getMessage() != null ? e.getMessage() : e.toString();
+            long delay = Math.min(MAX_RETRY_DELAY_MS, FIRST_RETRY_DELAY_MS << Math.min(checkout.attempts - 1, 16));
+            Log.w(TAG, "Commit of order " + checkout.orderId + " failed (attempt " + checkout.attempts
+                    + "), retrying in " + delay + "ms: " + checkout.lastError);
+            publishStatus();
+            // 期间若已手动重试（attempts 变化），这次定时重试作废
+            int attempt = checkout.attempts;
+            mainHandler.postDelayed(() -> AppExecutors.writeExecutor.execute(() -> {
+                if (checkout.attempts == attempt) commit(checkout);
+            }), delay);
+        }
+    }
+
+    /**
+     * 删除该单的购物车日志，并在发件箱文件中清掉日志路径
+     * 单号会被重新使用（BasketManager 按现有日志分配），重启时不能再按旧路径删除，否则会删掉新开的单
+     */
+    private void deleteJournal(PendingCheckout checkout) {
+        new File(checkout.journalPath).delete();
+        checkout.journalPath = null;
+        try {
+            write(checkout);
+        } catch (IOException e) {
+            Log.w(TAG, "Outbox update failed: " + e.getMessage());
+        }
+    }
+
+    // 订单号从库中和发件箱中的最大值往后分配
+    private void ensureOrderIdSeeded() {
+        if (lastOrderId >= 0) return;
+        long max = orderDao.getMaxOrderId();
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
+        if (files != null) {
+            for (File file : files) {
+                try {
+                    max = Math.max(max, Long.parseLong(file.getName().substring(0, file.getName().length() - 5)));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        lastOrderId = max;
+    }
+
+    // 先写临时文件并 fsync，再改名，保证文件要么完整要么不存在
+    private void write(PendingCheckout checkout) throws IOException {
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        File target = entryFile(checkout.orderId);
+        File tmp = new File(dir, target.getName() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            gson.toJson(checkout, writer);
+            writer.flush();
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(target)) {
+            tmp.delete();
+            throw new IOException("Rename failed: " + target);
+        }
+    }
+
+    private File entryFile(long orderId) {
+        return new File(dir, orderId + ".json");
+    }
+
+    private void publishStatus() {
+        List<PendingCheckout> failed = new ArrayList<>();
+        for (PendingCheckout checkout : pending.values()) {
+            if (checkout.lastError != null) failed.add(checkout);
+        }
+        status.postValue(new Status(pending.size(), failed));
+    }
+}
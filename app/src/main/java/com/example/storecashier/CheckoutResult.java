@@ -0,0 +1,31 @@
+package com.example.storecashier;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 结算结果：订单号 + 每个商品结算后的最新库存（按购物车顺序）+ 库存不足（超卖）的商品
+ */
+public class CheckoutResult {
+    private final long orderId;
+    private final Map<String, Integer> resultingStock;
+    private final Map<String, Integer> shortages;
+
+    public CheckoutResult(long orderId, Map<String, Integer> resultingStock) {
+        this(orderId, resultingStock, Collections.emptyMap());
+    }
+
+    public CheckoutResult(long orderId, Map<String, Integer> resultingStock, Map<String, Integer> shortages) {
+        this.orderId = orderId;
+        this.resultingStock = Collections.unmodifiableMap(resultingStock);
+        this.shortages = Collections.unmodifiableMap(shortages);
+    }
+
+    public long getOrderId() { return orderId; }
+
+    // 条码 → 扣减后的库存
+    public Map<String, Integer> getResultingStock() { return resultingStock; }
+
+    // 条码 → 超出库存的件数，库存记录与实物不符，需要盘点
+    public Map<String, Integer> getShortages() { return shortages; }
+}
@@ -0,0 +1,141 @@
+package com.example.storecashier;
+
+import android.app.AlertDialog;
+import android.os.Bundle;
+import android.os.Environment;
+import android.text.InputType;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Button;
+import android.widget.EditText;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.widget.Toolbar;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 性能诊断：后台通道排队情况、条码缓存命中率、扫码各阶段耗时、数据库查询耗时与慢查询日志
+ */
+public class DiagnosticsFragment extends Fragment {
+    // 查询统计只显示总耗时最高的若干条
+    private static final int MAX_QUERIES_SHOWN = 30;
+
+    private ProductViewModel productViewModel;
+    private TextView tvDiagnostics;
+    private Button btnSlowThreshold;
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        View view = inflater.inflate(R.layout.fragment_diagnostics, container, false);
+
+        Toolbar toolbar = view.findViewById(R.id.toolbar_diagnostics);
+        toolbar.setNavigationOnClickListener(v -> getParentFragmentManager().popBackStack());
+
+        productViewModel = new ViewModelProvider(requireActivity()).get(ProductViewModel.class);
+        tvDiagnostics = view.findViewById(R.id.tv_diagnostics);
+        btnSlowThreshold = view.findViewById(R.id.btn_slow_threshold);
+
+        view.findViewById(R.id.btn_diagnostics_refresh).setOnClickListener(v -> refresh());
+        view.findViewById(R.id.btn_diagnostics_reset).setOnClickListener(v -> {
+            QueryMonitor.reset();
+            ScanTracer.reset();
+            refresh();
+        });
+        btnSlowThreshold.setOnClickListener(v -> showThresholdDialog());
+        view.findViewById(R.id.btn_export_scan_trace).setOnClickListener(v -> exportScanTrace());
+
+        refresh();
+        return view;
+    }
+
+    private void refresh() {
+        btnSlowThreshold.setText("慢查询阈值：" + QueryMonitor.getSlowQueryThresholdMillis() + "ms");
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("【后台通道】\n").append(AppExecutors.getStats());
+        sb.append("\n\n【条码缓存】\n").append(productViewModel.getProductCache().getStats());
+        sb.append("\n\n【扫码耗时】\n").append(ScanTracer.getSummary());
+
+        List<QueryStats> stats = QueryMonitor.getStats();
+        sb.append("\n\n【数据库查询】（按总耗时排序，共 ").append(stats.size()).append(" 条 SQL）");
+        for (int i = 0; i < stats.size() && i < MAX_QUERIES_SHOWN; i++) {
+            sb.append("\n\n").append(stats.get(i));
+        }
+
+        List<String> slowLog = QueryMonitor.getSlowLog();
+        sb.append("\n\n【慢查询】");
+        if (slowLog.isEmpty()) {
+            sb.append("\n暂无");
+        }
+        for (String entry : slowLog) {
+            sb.append("\n\n").append(entry);
+        }
+        tvDiagnostics.setText(sb.toString());
+    }
+
+    // 导出到 Download/Cashier，与本地备份同一目录
+    private void exportScanTrace() {
+        AppExecutors.bulkExecutor.execute(() -> {
+            String message;
+            try {
+                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss", Locale.getDefault());
+                File dir = new File(Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS), "Cashier");
+                if (!dir.exists()) dir.mkdirs();
+                File file = new File(dir, "scan_trace_" + sdf.format(new Date()) + ".csv");
+                int rows;
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+                    rows = ScanTracer.exportCsv(writer);
+                }
+                message = "已导出 " + rows + " 条扫码记录：" + file.getAbsolutePath();
+            } catch (IOException e) {
+                e.printStackTrace();
+                message = "导出失败：" + e.getMessage();
+            }
+            String result = message;
+            if (isAdded()) {
+                requireActivity().runOnUiThread(() ->
+                        Toast.makeText(requireContext(), result, Toast.LENGTH_LONG).show());
+            }
+        });
+    }
+
+    private void showThresholdDialog() {
+        EditText etThreshold = new EditText(requireContext());
+        etThreshold.setInputType(InputType.TYPE_CLASS_NUMBER);
+        etThreshold.setText(String.valueOf(QueryMonitor.getSlowQueryThresholdMillis()));
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("慢查询阈值（毫秒）")
+                .setView(etThreshold)
+                .setPositiveButton("确定", (dialog, which) -> {
+                    try {
+                        long millis = Long.parseLong(etThreshold.getText().toString().trim());
+                        if (millis <= 0) throw new NumberFormatException();
+                        QueryMonitor.setSlowQueryThresholdMillis(requireContext(), millis);
+                        refresh();
+                    } catch (NumberFormatException e) {
+                        Toast.makeText(requireContext(), "请输入大于 0 的整数", Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.storecashier;
+
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 本地文件 → SHA-256 的缓存，文件大小和修改时间不变时直接复用上次的哈希，
+ * 每次备份不必重新读取所有图片
+ */
+public class FileHashCache {
+    private static final String TAG = "FileHashCache";
+
+    private static class Entry {
+        long length;
+        long lastModified;
+        String hash;
+        // 从云端下载时记录的 ETag，可为 null
+        String etag;
+    }
+
+    private final File storeFile;
+    private final Gson gson = new Gson();
+    private Map<String, Entry> entries;
+    private boolean dirty = false;
+
+    public FileHashCache(File storeFile) {
+        this.storeFile = storeFile;
+    }
+
+    /**
+     * 取文件的哈希，缓存失效时重新计算，需在后台线程调用
+     */
+    public String get(File file) throws IOException {
+        String key = file.getAbsolutePath();
+        synchronized (this) {
+            Entry entry = entries().get(key);
+            if (entry != null && entry.length == file.length() && entry.lastModified == file.lastModified()) {
+                return entry.hash;
+            }
+        }
+        // 计算哈希时不持有锁，多个文件可以并行计算
+        Entry entry = new Entry();
+        entry.length = file.length();
+        entry.lastModified = file.lastModified();
+        entry.hash = HashUtil.sha256Hex(file);
+        synchronized (this) {
+            entries().put(key, entry);
+            dirty = true;
+        }
+        return entry.hash;
+    }
+
+    // 文件未被修改过时返回下载时记录的 ETag，否则返回 null
+    public synchronized String getEtag(File file) {
+        Entry entry = entries().get(file.getAbsolutePath());
+        if (entry != null && entry.length == file.length() && entry.lastModified == file.lastModified()) {
+            return entry.etag;
+        }
+        return null;
+    }
+
+    // 已知内容哈希的文件（如刚下载并校验过），直接记录
+    public synchronized void put(File file, String hash, String etag) {
+        Entry entry = new Entry();
+        entry.length = file.length();
+        entry.lastModified = file.lastModified();
+        entry.hash = hash;
+        entry.etag = etag;
+        entries().put(file.getAbsolutePath(), entry);
+        dirty = true;
+    }
+
+    public synchronized void save() {
+        if (!dirty) return;
+        // 顺便清掉已不存在的文件
+        entries().keySet().removeIf(path -> !new File(path).exists());
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(storeFile), StandardCharsets.UTF_8))) {
+            gson.toJson(entries, writer);
+            dirty = false;
+        } catch (IOException e) {
+            Log.w(TAG, "Save hash cache failed: " + e.getMessage());
+        }
+    }
+
+    private Map<String, Entry> entries() {
+        if (entries == null) {
+            entries = load();
+        }
+        return entries;
+    }
+
+    private Map<String, Entry> load() {
+        if (storeFile.exists()) {
+            try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(storeFile), StandardCharsets.UTF_8))) {
+                Type type = new TypeToken<HashMap<String, Entry>>() {}.getType();
+                Map<String, Entry> loaded = gson.fromJson(reader, type);
+                if (loaded != null) return loaded;
+            } catch (Exception e) {
+                Log.w(TAG, "Load hash cache failed, rebuilding: " + e.getMessage());
+            }
+        }
+        return new HashMap<>();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.storecashier;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 图片垃圾回收：删除 images/ 和 thumbnails/ 中没有任何商品引用的文件
+ * 刚入库、还没保存到商品的图片（以及下载中的临时文件）在宽限期内保留
+ */
+public class ImageGarbageCollector {
+    private static final String TAG = "ImageGC";
+    private static final long GRACE_PERIOD_MS = 24L * 60 * 60 * 1000;
+
+    /**
+     * 执行一次回收，需在后台线程调用
+     * @return 删除的文件数
+     */
+    public static int collect(Context context, ProductDao productDao) {
+        Set<String> referenced = new HashSet<>();
+        for (String path : productDao.getReferencedImagePaths()) {
+            referenced.add(new File(path).getAbsolutePath());
+        }
+
+        long cutoff = System.currentTimeMillis() - GRACE_PERIOD_MS;
+        int deleted = 0;
+        long bytesFreed = 0;
+        File[] dirs = {ImagePipeline.getImagesDir(context), ImagePipeline.getThumbnailsDir(context)};
+        for (File dir : dirs) {
+            File[] files = dir.listFiles();
+            if (files == null) continue;
+            for (File file : files) {
+                if (!file.isFile() || referenced.contains(file.getAbsolutePath())) continue;
+                if (file.lastModified() > cutoff) continue;
+                long length = file.length();
+                if (file.delete()) {
+                    deleted++;
+                    bytesFreed += length;
+                }
+            }
+        }
+        Log.d(TAG, "Deleted " + deleted + " unreferenced images, freed " + bytesFreed / 1024 + " KB, "
+                + referenced.size() + " files referenced");
+        return deleted;
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.storecashier;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 商品图片入库管道：选图时一次性生成
+ * - 主图：长边不超过 1024px 的 JPEG，编辑对话框和备份使用
+ * - 缩略图：192px 正方形 JPEG，列表行只加载缩略图
+ * 按 EXIF 方向摆正后再保存，之后加载无需再处理旋转
+ * 文件以原图内容的 SHA-256 命名，同一张图片只保存一份，无引用的文件由 ImageGarbageCollector 清理
+ */
+public class ImagePipeline {
+    private static final String TAG = "ImagePipeline";
+
+    public static final String IMAGES_DIR = "images";
+    public static final String THUMBNAILS_DIR = "thumbnails";
+
+    private static final int MASTER_MAX_EDGE = 1024;
+    private static final int MASTER_QUALITY = 85;
+    private static final int THUMBNAIL_SIZE = 192;
+    private static final int THUMBNAIL_QUALITY = 80;
+
+    // 入库结果：主图和缩略图的绝对路径
+    public static class Result {
+        private final String imagePath;
+        private final String thumbnailPath;
+
+        public Result(String imagePath, String thumbnailPath) {
+            this.imagePath = imagePath;
+            this.thumbnailPath = thumbnailPath;
+        }
+
+        public String getImagePath() { return imagePath; }
+        public String getThumbnailPath() { return thumbnailPath; }
+    }
+
+    /**
+     * 从相册 Uri 生成主图和缩略图，需在后台线程调用
+     * 同一张原图已入库过时直接复用已有文件，不再解码
+     * @return 解码失败时退回原样拷贝（无缩略图），读取失败返回 null
+     */
+    public static Result ingest(Context context, Uri uri) {
+        String hash;
+        try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+            if (in == null) return null;
+            hash = HashUtil.sha256Hex(in);
+        } catch (IOException e) {
+            Log.e(TAG, "Read image failed: " + e.getMessage());
+            return null;
+        }
+
+        String fileName = hash + ".jpg";
+        File masterFile = new File(getImagesDir(context), fileName);
+        File thumbnailFile = new File(getThumbnailsDir(context), fileName);
+        if (masterFile.exists()) {
+            // 刷新修改时间，避免保存商品前被垃圾回收当作过期文件删除
+            masterFile.setLastModified(System.currentTimeMillis());
+            String thumbnailPath = thumbnailFile.exists()
+                    ? thumbnailFile.getAbsolutePath() : createThumbnail(context, masterFile);
+            return new Result(masterFile.getAbsolutePath(), thumbnailPath);
+        }
+
+        // 先写临时文件再改名，中途失败不会留下以哈希命名的半个文件
+        File tempFile = new File(masterFile.getPath() + ".tmp");
+        try {
+            int rotation = readRotation(context, uri);
+            Bitmap master = decodeScaled(context, uri, MASTER_MAX_EDGE, rotation);
+            if (master != null) {
+                try {
+                    writeJpeg(master, tempFile, MASTER_QUALITY);
+                    writeThumbnail(master, thumbnailFile);
+                } finally {
+                    master.recycle();
+                }
+                if (tempFile.renameTo(masterFile)) {
+                    return new Result(masterFile.getAbsolutePath(), thumbnailFile.getAbsolutePath());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Ingest failed, copying original: " + e.getMessage());
+        }
+        tempFile.delete();
+
+        String copiedPath = FileUtil.copyImageToInternal(context, uri, tempFile.getName());
+        if (copiedPath == null || !new File(copiedPath).renameTo(masterFile)) {
+            if (copiedPath != null) new File(copiedPath).delete();
+            return null;
+        }
+        return new Result(masterFile.getAbsolutePath(), null);
+    }
+
+    /**
+     * 为已有主图补生成缩略图（旧数据、云恢复后），需在后台线程调用
+     * @return 缩略图路径，失败返回 null
+     */
+    public static String createThumbnail(Context context, File imageFile) {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(imageFile.getAbsolutePath(), bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, THUMBNAIL_SIZE);
+        Bitmap bitmap = BitmapFactory.decodeFile(imageFile.getAbsolutePath(), options);
+        if (bitmap == null) return null;
+        try {
+            bitmap = rotate(bitmap, readRotation(imageFile));
+            File thumbnailFile = new File(getThumbnailsDir(context), imageFile.getName());
+            writeThumbnail(bitmap, thumbnailFile);
+            return thumbnailFile.getAbsolutePath();
+        } catch (IOException e) {
+            Log.e(TAG, "Create thumbnail failed: " + e.getMessage());
+            return null;
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    // 列表行显示用的图片：优先缩略图，没有时退回主图
+    public static File listImageFile(Product product) {
+        String path = product.getThumbnailPath();
+        if (path == null || path.isEmpty()) {
+            path = product.getImagePath();
+        }
+        return path == null || path.isEmpty() ? null : new File(path);
+    }
+
+    public static File getImagesDir(Context context) {
+        File dir = new File(context.getFilesDir(), IMAGES_DIR);
+        if (!dir.exists()) dir.mkdirs();
+        return dir;
+    }
+
+    public static File getThumbnailsDir(Context context) {
+        File dir = new File(context.getFilesDir(), THUMBNAILS_DIR);
+        if (!dir.exists()) dir.mkdirs();
+        return dir;
+    }
+
+    // 先只读尺寸，用 inSampleSize 按 2 的幂解码，再精确缩放到目标长边
+    private static Bitmap decodeScaled(Context context, Uri uri, int maxEdge, int rotation) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+            if (in == null) return null;
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) return null;
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, maxEdge);
+        Bitmap bitmap;
+        try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+            if (in == null) return null;
+            bitmap = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (bitmap == null) return null;
+
+        int longEdge = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longEdge > maxEdge) {
+            float scale = (float) maxEdge / longEdge;
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+                    Math.round(bitmap.getWidth() * scale), Math.round(bitmap.getHeight() * scale), true);
+            if (scaled != bitmap) bitmap.recycle();
+            bitmap = scaled;
+        }
+        return rotate(bitmap, rotation);
+    }
+
+    // 最大的 2 的幂，使解码后的长边仍不小于目标长边
+    private static int sampleSize(int width, int height, int targetEdge) {
+        int longEdge = Math.max(width, height);
+        int sampleSize = 1;
+        while (longEdge / (sampleSize * 2) >= targetEdge) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    // 居中裁成正方形并缩放到缩略图尺寸
+    private static void writeThumbnail(Bitmap source, File target) throws IOException {
+        int edge = Math.min(source.getWidth(), source.getHeight());
+        int x = (source.getWidth() - edge) / 2;
+        int y = (source.getHeight() - edge) / 2;
+        float scale = Math.min(1f, (float) THUMBNAIL_SIZE / edge);
+        Matrix matrix = new Matrix();
+        matrix.setScale(scale, scale);
+        Bitmap thumbnail = Bitmap.createBitmap(source, x, y, edge, edge, matrix, true);
+        try {
+            writeJpeg(thumbnail, target, THUMBNAIL_QUALITY);
+        } finally {
+            if (thumbnail != source) thumbnail.recycle();
+        }
+    }
+
+    private static void writeJpeg(Bitmap bitmap, File target, int quality) throws IOException {
+        try (OutputStream out = new FileOutputStream(target)) {
+            if (!bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out)) {
+                throw new IOException("JPEG compress failed: " + target);
+            }
+        }
+    }
+
+    private static int readRotation(Context context, Uri uri) {
+        try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+            if (in == null) return 0;
+            return toDegrees(new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static int readRotation(File file) {
+        try {
+            return toDegrees(new ExifInterface(file.getAbsolutePath()).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL));
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static int toDegrees(int orientation) {
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90: return 90;
+            case ExifInterface.ORIENTATION_ROTATE_180: return 180;
+            case ExifInterface.ORIENTATION_ROTATE_270: return 270;
+            default: return 0;
+        }
+    }
+
+    private static Bitmap rotate(Bitmap bitmap, int degrees) {
+        if (degrees == 0) return bitmap;
+        Matrix matrix = new Matrix();
+        matrix.postRotate(degrees);
+        Bitmap rotated = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        if (rotated != bitmap) bitmap.recycle();
+        return rotated;
+    }
+}
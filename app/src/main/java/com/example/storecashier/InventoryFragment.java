@@ -1,27 +1,29 @@
 package com.example.storecashier;
 
 import android.app.AlertDialog;
+import android.content.Context;
 import android.content.DialogInterface;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.InputType;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.BaseAdapter;
 import android.widget.EditText;
 import android.widget.ImageView;
-import android.widget.ListView;
-import android.widget.TextView;
 import android.widget.Toast;
-import android.widget.CheckBox;
 import android.widget.Button;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Set;
 
 import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import android.widget.AutoCompleteTextView;
 import android.widget.ArrayAdapter;
@@ -34,9 +36,8 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import android.net.Uri;
 
 public class InventoryFragment extends Fragment {
-    private ListView lvProductInventory;
-    private List<Product> productList = new ArrayList<>();
-    private ProductAdapter productAdapter;
+    private RecyclerView rvProductInventory;
+    private ProductListAdapter productAdapter;
     private ProductViewModel productViewModel;
     private Button btnManage;
 
@@ -44,55 +45,77 @@ public class InventoryFragment extends Fragment {
     private Product currentEditingProduct;
     private ImageView currentDialogImageView;
     private String tempImagePath; // 用于暂存新选中的图片路径
+    private String tempThumbnailPath; // 新选中图片的缩略图路径
 
     // 注册图片选择器
     private final ActivityResultLauncher<String> imagePickerLauncher = registerForActivityResult(
             new ActivityResultContracts.GetContent(),
             uri -> {
                 if (uri != null && currentEditingProduct != null && currentDialogImageView != null) {
-                    // 拷贝图片到私有目录
-                    String fileName = "img_" + currentEditingProduct.getBarcode() + "_" + System.currentTimeMillis() + ".jpg";
-                    String newPath = FileUtil.copyImageToInternal(requireContext(), uri, fileName);
-                    if (newPath != null) {
-                        tempImagePath = newPath;
-                        // 预览新图片
-                        Glide.with(this).load(new File(newPath)).into(currentDialogImageView);
-                    }
+                    // 压缩图片并生成缩略图，保存到私有目录（解码较慢，放到后台）
+                    Context appContext = requireContext().getApplicationContext();
+                    AppExecutors.bulkExecutor.execute(() -> {
+                        ImagePipeline.Result result = ImagePipeline.ingest(appContext, uri);
+                        if (result == null || getActivity() == null) return;
+                        requireActivity().runOnUiThread(() -> {
+                            // 对话框已关闭则丢弃
+                            if (currentDialogImageView == null || !isAdded()) return;
+                            tempImagePath = result.getImagePath();
+                            tempThumbnailPath = result.getThumbnailPath();
+                            // 预览新图片
+                            Glide.with(this).load(new File(tempImagePath)).into(currentDialogImageView);
+                        });
+                    });
                 }
             }
     );
 
-    // 管理模式状态
-    private boolean isManageMode = false;
-    // 选中的商品列表
-    private List<Product> selectedProducts = new ArrayList<>();
-
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_inventory, container, false);
 
         // 初始化控件和ViewModel
-        lvProductInventory = view.findViewById(R.id.lv_product_inventory);
+        rvProductInventory = view.findViewById(R.id.rv_product_inventory);
         btnManage = view.findViewById(R.id.btn_manage);
         productViewModel = new ViewModelProvider(requireActivity()).get(ProductViewModel.class);
 
-        // 初始化适配器
-        productAdapter = new ProductAdapter();
-        lvProductInventory.setAdapter(productAdapter);
+        // 初始化适配器：长按商品自由编辑，勾选变化时更新管理按钮文字
+        productAdapter = new ProductListAdapter(new ProductListAdapter.Listener() {
+            @Override
+            public void onProductLongClick(Product product) {
+                showEditProductDialog(product);
+            }
 
-        // 观察商品列表变化
-        productViewModel.getAllProducts().observe(getViewLifecycleOwner(), products -> {
-            productList = products;
-            productAdapter.notifyDataSetChanged();
+            @Override
+            public void onSelectionChanged(int selectedCount) {
+                // 有选中项时显示"删除选中"，否则显示"取消"
+                btnManage.setText(selectedCount > 0 ? "删除选中" : "取消");
+            }
         });
-
-        // 长按商品自由编辑
-        lvProductInventory.setOnItemLongClickListener((parent, view1, position, id) -> {
-            Product product = productList.get(position);
-            showEditProductDialog(product);
-            return true;
+        rvProductInventory.setLayoutManager(new LinearLayoutManager(requireContext()));
+        rvProductInventory.addItemDecoration(new DividerItemDecoration(requireContext(), DividerItemDecoration.VERTICAL));
+        rvProductInventory.setAdapter(productAdapter);
+
+        // 边输边搜：搜索框内容交给 ViewModel，列表随检索结果变化
+        EditText etSearch = view.findViewById(R.id.et_inventory_search);
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) { }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) { }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                productViewModel.setInventoryQuery(s.toString());
+            }
         });
+        // 新建页面时搜索框为空，与之同步（页面重建时恢复的文字会再触发一次）
+        productViewModel.setInventoryQuery(etSearch.getText().toString());
+
+        // 观察商品列表变化，差异在后台线程计算，只刷新变化的行
+        productViewModel.getInventoryProducts().observe(getViewLifecycleOwner(), productAdapter::submitList);
 
         // 管理按钮点击事件
         btnManage.setOnClickListener(v -> toggleManageMode());
@@ -107,53 +130,133 @@ public class InventoryFragment extends Fragment {
 
     // 切换管理模式
     private void toggleManageMode() {
-        isManageMode = !isManageMode;
-        if (isManageMode) {
+        if (!productAdapter.isManageMode()) {
             btnManage.setText("取消"); // 进入管理模式时先显示"取消"
-            // 清空选中列表
-            selectedProducts.clear();
+            productAdapter.setManageMode(true);
+            return;
+        }
+        btnManage.setText("管理");
+        // 如果是退出管理模式并有选中项，选择要执行的批量操作
+        Set<Integer> selectedIds = productAdapter.getSelectedIds();
+        if (selectedIds.isEmpty()) {
+            productAdapter.setManageMode(false);
         } else {
-            btnManage.setText("管理");
-            // 如果是退出管理模式并点击了删除按钮，则执行删除操作
-            if (selectedProducts.size() > 0) {
-                deleteSelectedProducts();
-            }
+            showBatchActionDialog(selectedIds);
         }
-        // 通知适配器管理模式变化
-        productAdapter.notifyDataSetChanged();
+    }
+
+    // 批量操作选择
+    private void showBatchActionDialog(Set<Integer> selectedIds) {
+        String[] actions = {"删除", "修改分类", "按百分比调价", "设置库存"};
+        new AlertDialog.Builder(requireContext())
+                .setTitle("已选中 " + selectedIds.size() + " 个商品")
+                .setItems(actions, (dialog, which) -> {
+                    switch (which) {
+                        case 0: deleteSelectedProducts(selectedIds); break;
+                        case 1: showBatchCategoryDialog(selectedIds); break;
+                        case 2: showBatchPriceDialog(selectedIds); break;
+                        case 3: showBatchStockDialog(selectedIds); break;
+                    }
+                })
+                .setNegativeButton("取消", (dialog, which) -> productAdapter.setManageMode(false))
+                .setOnCancelListener(dialog -> productAdapter.setManageMode(false))
+                .show();
+    }
+
+    private void showBatchCategoryDialog(Set<Integer> selectedIds) {
+        AutoCompleteTextView actvCategory = new AutoCompleteTextView(requireContext());
+        actvCategory.setHint("新分类（留空为清除分类）");
+        productViewModel.getAllCategories().observe(getViewLifecycleOwner(), categories -> {
+            if (categories != null) {
+                actvCategory.setAdapter(new ArrayAdapter<>(requireContext(),
+                        android.R.layout.simple_dropdown_item_1line, categories));
+            }
+        });
+        showBatchInputDialog("修改分类", actvCategory, () -> {
+            String category = actvCategory.getText().toString().trim();
+            productViewModel.updateCategory(selectedIds, category.isEmpty() ? null : category,
+                    affected -> showBatchResult("已修改 " + affected + " 个商品的分类"));
+        });
+    }
+
+    private void showBatchPriceDialog(Set<Integer> selectedIds) {
+        EditText etPercent = new EditText(requireContext());
+        etPercent.setHint("调整百分比，如 10 为涨价 10%，-10 为降价 10%");
+        etPercent.setInputType(InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_DECIMAL | InputType.TYPE_NUMBER_FLAG_SIGNED);
+        showBatchInputDialog("按百分比调价", etPercent, () -> {
+            double percent;
+            try {
+                percent = Double.parseDouble(etPercent.getText().toString().trim());
+            } catch (NumberFormatException e) {
+                Toast.makeText(requireContext(), "百分比格式错误", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            if (percent <= -100) {
+                Toast.makeText(requireContext(), "价格必须大于0", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            productViewModel.adjustPriceByPercent(selectedIds, percent,
+                    affected -> showBatchResult("已调整 " + affected + " 个商品的价格"));
+        });
+    }
+
+    private void showBatchStockDialog(Set<Integer> selectedIds) {
+        EditText etStock = new EditText(requireContext());
+        etStock.setHint("新库存");
+        etStock.setInputType(InputType.TYPE_CLASS_NUMBER);
+        showBatchInputDialog("设置库存", etStock, () -> {
+            int stock;
+            try {
+                stock = Integer.parseInt(etStock.getText().toString().trim());
+            } catch (NumberFormatException e) {
+                Toast.makeText(requireContext(), "库存格式错误", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            productViewModel.setStock(selectedIds, stock,
+                    affected -> showBatchResult("已设置 " + affected + " 个商品的库存"));
+        });
+    }
+
+    private void showBatchInputDialog(String title, View input, Runnable onConfirm) {
+        new AlertDialog.Builder(requireContext())
+                .setTitle(title)
+                .setView(input)
+                .setPositiveButton("确认", (dialog, which) -> onConfirm.run())
+                .setNegativeButton("取消", null)
+                .setOnDismissListener(dialog -> productAdapter.setManageMode(false))
+                .show();
+    }
+
+    // 批量操作在写通道完成后回调，切回主线程提示影响行数
+    private void showBatchResult(String message) {
+        if (getActivity() == null) return;
+        requireActivity().runOnUiThread(() -> {
+            if (isAdded()) {
+                Toast.makeText(requireContext(), message, Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     // 删除选中的商品
-    private void deleteSelectedProducts() {
+    private void deleteSelectedProducts(Set<Integer> selectedIds) {
         // 弹出确认对话框
         new AlertDialog.Builder(requireContext())
                 .setTitle("确认删除")
-                .setMessage("确定要删除选中的" + selectedProducts.size() + "个商品吗？")
+                .setMessage("确定要删除选中的" + selectedIds.size() + "个商品吗？")
                 .setPositiveButton("删除", (dialog, which) -> {
-                    // 执行删除操作
-                    AppDatabase.databaseWriteExecutor.execute(() -> {
-                        ProductDao dao = AppDatabase.getDatabase(requireContext()).productDao();
-                        for (Product product : selectedProducts) {
-                            dao.delete(product);
-                        }
-                    });
-                    Toast.makeText(requireContext(), "删除成功！", Toast.LENGTH_SHORT).show();
-                    // 重置选中列表
-                    selectedProducts.clear();
-                    isManageMode = false;
-                    btnManage.setText("管理");
-                })
-                .setNegativeButton("取消", (dialog, which) -> {
-                    isManageMode = false;
-                    btnManage.setText("管理");
-                    selectedProducts.clear();
-                    productAdapter.notifyDataSetChanged();
+                    // 一个事务内按 id 批量删除，列表只刷新一次
+                    productViewModel.deleteByIds(selectedIds,
+                            affected -> showBatchResult("已删除 " + affected + " 个商品"));
+                    productAdapter.setManageMode(false);
                 })
+                .setNegativeButton("取消", (dialog, which) -> productAdapter.setManageMode(false))
+                .setOnCancelListener(dialog -> productAdapter.setManageMode(false))
                 .show();
     }
 
-    // 弹出修改库存对话框
-    private void showModifyStockDialog(Product product) {
+    // 弹出修改库存对话框（修改副本，列表中的实例保持不变，差异对比才能发现变化）
+    private void showModifyStockDialog(Product listProduct) {
+        Product product = new Product(listProduct);
         // 加载对话框布局
         View dialogView = LayoutInflater.from(requireContext()).inflate(R.layout.dialog_modify_stock, null);
         EditText etNewStock = dialogView.findViewById(R.id.et_new_stock);
@@ -188,11 +291,13 @@ public class InventoryFragment extends Fragment {
                 .show();
     }
 
-    // 弹出自由编辑商品信息对话框
-    private void showEditProductDialog(Product product) {
+    // 弹出自由编辑商品信息对话框（修改副本，同上）
+    private void showEditProductDialog(Product listProduct) {
+        Product product = new Product(listProduct);
         // 更新当前编辑状态
         currentEditingProduct = product;
         tempImagePath = product.getImagePath(); // 初始为原路径
+        tempThumbnailPath = product.getThumbnailPath();
 
         // 创建对话框布局
         LayoutInflater inflater = LayoutInflater.from(requireContext());
@@ -266,6 +371,7 @@ public class InventoryFragment extends Fragment {
                         product.setStock(stock);
                         product.setCategory(category);
                         product.setImagePath(tempImagePath); // 更新图片路径
+                        product.setThumbnailPath(tempThumbnailPath);
                         productViewModel.update(product);
                         Toast.makeText(requireContext(), "商品信息更新成功", Toast.LENGTH_SHORT).show();
 
@@ -278,109 +384,12 @@ public class InventoryFragment extends Fragment {
                     currentEditingProduct = null;
                     currentDialogImageView = null;
                     tempImagePath = null;
+                    tempThumbnailPath = null;
                 })
                 .setNegativeButton("取消", null)
                 .show();
     }
 
-    // 商品列表适配器
-    private class ProductAdapter extends BaseAdapter {
-        @Override
-        public int getCount() {
-            return productList == null ? 0 : productList.size();
-        }
-
-        @Override
-        public Object getItem(int position) {
-            return productList.get(position);
-        }
-
-        @Override
-        public long getItemId(int position) {
-            return productList.get(position).getId();
-        }
-
-        @Override
-        public View getView(int position, View convertView, ViewGroup parent) {
-            ViewHolder holder;
-            if (convertView == null) {
-                convertView = LayoutInflater.from(requireContext())
-                        .inflate(R.layout.item_product, parent, false);
-                holder = new ViewHolder();
-                holder.cbSelect = convertView.findViewById(R.id.cb_select_product);
-                holder.ivIcon = convertView.findViewById(R.id.iv_product_icon);
-                holder.tvName = convertView.findViewById(R.id.tv_product_name);
-                holder.tvCategory = convertView.findViewById(R.id.tv_product_category);
-                holder.tvBarcode = convertView.findViewById(R.id.tv_product_barcode);
-                holder.tvPrice = convertView.findViewById(R.id.tv_product_price);
-                holder.tvStock = convertView.findViewById(R.id.tv_product_stock);
-                convertView.setTag(holder);
-            } else {
-                holder = (ViewHolder) convertView.getTag();
-            }
-
-            // 填充数据
-            Product product = productList.get(position);
-            holder.tvName.setText(product.getName());
-            
-            // 加载图片
-            Glide.with(requireContext())
-                    .load(product.getImagePath() != null ? new File(product.getImagePath()) : null)
-                    .placeholder(R.drawable.default_img)
-                    .error(R.drawable.default_img)
-                    .into(holder.ivIcon);
-
-            // 设置分类显示
-            if (product.getCategory() != null && !product.getCategory().isEmpty()) {
-                holder.tvCategory.setVisibility(View.VISIBLE);
-                holder.tvCategory.setText(product.getCategory());
-            } else {
-                holder.tvCategory.setVisibility(View.GONE);
-            }
-
-            holder.tvBarcode.setText(product.getBarcode());
-            holder.tvPrice.setText(String.format("%.2f元", product.getPrice())); // 价格保留2位小数
-            holder.tvStock.setText(String.valueOf(product.getStock()));
-
-            // 设置管理模式下的复选框状态
-            if (isManageMode) {
-                holder.cbSelect.setVisibility(View.VISIBLE);
-                // 设置复选框选中状态
-                holder.cbSelect.setChecked(selectedProducts.contains(product));
-
-                // 保存当前位置和产品引用，用于点击事件
-                Product finalProduct = product;
-
-                // 复选框点击事件
-                holder.cbSelect.setOnClickListener(v -> {
-                    if (holder.cbSelect.isChecked()) {
-                        selectedProducts.add(finalProduct);
-                    } else {
-                        selectedProducts.remove(finalProduct);
-                    }
-                    // 更新按钮文本：有选中项时显示"删除选中"，否则显示"取消"
-                    if (selectedProducts.size() > 0) {
-                        btnManage.setText("删除选中");
-                    } else {
-                        btnManage.setText("取消");
-                    }
-                });
-            } else {
-                holder.cbSelect.setVisibility(View.GONE);
-                holder.cbSelect.setChecked(false); // 退出管理模式时取消勾选
-            }
-
-            return convertView;
-        }
-
-        // ViewHolder优化列表性能
-        class ViewHolder {
-            CheckBox cbSelect;
-            ImageView ivIcon;
-            TextView tvName, tvCategory, tvBarcode, tvPrice, tvStock;
-        }
-    }
-
     @Override
     public void onResume() {
         super.onResume();
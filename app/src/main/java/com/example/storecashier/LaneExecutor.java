@@ -0,0 +1,85 @@
+package com.example.storecashier;
+
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单条任务通道：固定线程数 + 线程优先级 + 排队指标（队列深度、等待时间）
+ */
+public class LaneExecutor implements Executor {
+    private final String name;
+    private final ThreadPoolExecutor pool;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong executedCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public LaneExecutor(String name, int threadCount, int threadPriority) {
+        this.name = name;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threadCount, threadCount,
+                0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> new Thread(() -> {
+                    Process.setThreadPriority(threadPriority);
+                    runnable.run();
+                }, name + "-" + threadIndex.incrementAndGet()));
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        long enqueuedAt = System.nanoTime();
+        queueDepth.incrementAndGet();
+        pool.execute(() -> {
+            queueDepth.decrementAndGet();
+            recordWait(System.nanoTime() - enqueuedAt);
+            command.run();
+        });
+    }
+
+    private void recordWait(long waitNanos) {
+        executedCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        long max;
+        do {
+            max = maxWaitNanos.get();
+        } while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // 当前排队中（尚未开始执行）的任务数
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    public double getAverageWaitMillis() {
+        long count = executedCount.get();
+        return count == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / count;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public String getStats() {
+        return String.format(Locale.getDefault(), "%s：排队 %d，已执行 %d，平均等待 %.2fms，最长等待 %.2fms",
+                name, getQueueDepth(), getExecutedCount(), getAverageWaitMillis(), getMaxWaitMillis());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.storecashier;
+
+import java.util.Locale;
+
+/**
+ * 金额换算：内部统一用“分”（long）计算，避免 double 累加误差
+ */
+public final class MoneyUtil {
+    private MoneyUtil() {}
+
+    // 元 → 分（四舍五入）
+    public static long toFen(double yuan) {
+        return Math.round(yuan * 100);
+    }
+
+    // 分 → 元
+    public static double toYuan(long fen) {
+        return fen / 100.0;
+    }
+
+    // 分 → "12.34"
+    public static String format(long fen) {
+        String sign = fen < 0 ? "-" : "";
+        long abs = Math.abs(fen);
+        return String.format(Locale.getDefault(), "%s%d.%02d", sign, abs / 100, abs % 100);
+    }
+}
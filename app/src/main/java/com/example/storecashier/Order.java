@@ -1,9 +1,10 @@
 package com.example.storecashier;
 
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "orders")
+@Entity(tableName = "orders", indices = {@Index("timestamp")})
 public class Order {
     @PrimaryKey(autoGenerate = true)
     private long orderId;
@@ -7,6 +7,8 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.text.SimpleDateFormat;
@@ -14,22 +16,30 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
-public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.ViewHolder> {
+public class OrderAdapter extends PagingDataAdapter<Order, OrderAdapter.ViewHolder> {
+
+    // 订单一经写入不再修改，按 orderId 判定同一项即可
+    private static final DiffUtil.ItemCallback<Order> DIFF_CALLBACK = new DiffUtil.ItemCallback<Order>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Order oldItem, @NonNull Order newItem) {
+            return oldItem.getOrderId() == newItem.getOrderId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Order oldItem, @NonNull Order newItem) {
+            return oldItem.getTimestamp() == newItem.getTimestamp()
+                    && oldItem.getTotalAmount() == newItem.getTotalAmount();
+        }
+    };
 
-    private List<Order> orders;
     private final ProductViewModel viewModel;
     private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
 
-    public OrderAdapter(List<Order> orders, ProductViewModel viewModel) {
-        this.orders = orders;
+    public OrderAdapter(ProductViewModel viewModel) {
+        super(DIFF_CALLBACK);
         this.viewModel = viewModel;
     }
 
-    public void setOrders(List<Order> orders) {
-        this.orders = orders;
-        notifyDataSetChanged();
-    }
-
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -39,7 +49,8 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.ViewHolder>
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Order order = orders.get(position);
+        Order order = getItem(position);
+        if (order == null) return;
         holder.tvOrderId.setText("订单号: " + order.getOrderId());
         holder.tvOrderTime.setText(dateFormat.format(new Date(order.getTimestamp())));
         holder.tvOrderTotal.setText(String.format("¥ %.2f", order.getTotalAmount()));
@@ -74,11 +85,6 @@ public class OrderAdapter extends RecyclerView.Adapter<OrderAdapter.ViewHolder>
                 .show();
     }
 
-    @Override
-    public int getItemCount() {
-        return orders.size();
-    }
-
     public static class ViewHolder extends RecyclerView.ViewHolder {
         TextView tvOrderId, tvOrderTime, tvOrderTotal;
 
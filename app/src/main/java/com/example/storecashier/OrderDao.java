@@ -15,9 +15,39 @@ public interface OrderDao {
     @Insert
     void insertOrderItems(List<OrderItem> items);
 
-    @Query("SELECT * FROM orders ORDER BY timestamp DESC")
-    LiveData<List<Order>> getAllOrders();
+    // 预分配订单号用
+    @Query("SELECT MAX(orderId) FROM orders")
+    long getMaxOrderId();
+
+    @Query("SELECT COUNT(*) FROM orders WHERE orderId = :orderId")
+    int countOrder(long orderId);
+
+    // 以下为历史订单键集分页查询，依赖 orders(timestamp) 索引（索引隐含按 orderId 排序）
+    @Query("SELECT * FROM orders ORDER BY timestamp DESC, orderId DESC LIMIT :limit")
+    List<Order> getLatestOrders(int limit);
+
+    @Query("SELECT * FROM orders WHERE timestamp <= :timestamp AND (timestamp < :timestamp OR orderId < :orderId) " +
+            "ORDER BY timestamp DESC, orderId DESC LIMIT :limit")
+    List<Order> getOrdersBefore(long timestamp, long orderId, int limit);
+
+    @Query("SELECT * FROM orders WHERE timestamp <= :timestamp AND (timestamp < :timestamp OR orderId <= :orderId) " +
+            "ORDER BY timestamp DESC, orderId DESC LIMIT :limit")
+    List<Order> getOrdersAtOrBefore(long timestamp, long orderId, int limit);
+
+    @Query("SELECT * FROM orders WHERE timestamp >= :timestamp AND (timestamp > :timestamp OR orderId > :orderId) " +
+            "ORDER BY timestamp ASC, orderId ASC LIMIT :limit")
+    List<Order> getOrdersAfter(long timestamp, long orderId, int limit);
 
     @Query("SELECT * FROM order_items WHERE orderId = :orderId")
     List<OrderItem> getOrderItemsSync(long orderId);
+
+    // 超卖记录，结算事务内写入，盘点后清除
+    @Insert
+    void insertShortages(List<StockShortage> shortages);
+
+    @Query("SELECT * FROM stock_shortage ORDER BY id DESC")
+    LiveData<List<StockShortage>> getShortages();
+
+    @Query("DELETE FROM stock_shortage")
+    void clearShortages();
 }
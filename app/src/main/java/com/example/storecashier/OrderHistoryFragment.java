@@ -12,8 +12,6 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
-
 public class OrderHistoryFragment extends Fragment {
 
     private ProductViewModel productViewModel;
@@ -30,14 +28,11 @@ public class OrderHistoryFragment extends Fragment {
         RecyclerView rvOrderHistory = view.findViewById(R.id.rv_order_history);
         productViewModel = new ViewModelProvider(requireActivity()).get(ProductViewModel.class);
 
-        orderAdapter = new OrderAdapter(new ArrayList<>(), productViewModel);
+        orderAdapter = new OrderAdapter(productViewModel);
         rvOrderHistory.setAdapter(orderAdapter);
 
-        productViewModel.getAllOrders().observe(getViewLifecycleOwner(), orders -> {
-            if (orders != null) {
-                orderAdapter.setOrders(orders);
-            }
-        });
+        productViewModel.getOrderPages().observe(getViewLifecycleOwner(), pagingData ->
+                orderAdapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
 
         return view;
     }
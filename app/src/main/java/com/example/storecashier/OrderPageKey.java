@@ -0,0 +1,21 @@
+package com.example.storecashier;
+
+/**
+ * 历史订单分页的游标：按 (timestamp, orderId) 倒序定位，避免 OFFSET 全表跳行
+ */
+public class OrderPageKey {
+    private final long timestamp;
+    private final long orderId;
+
+    public OrderPageKey(long timestamp, long orderId) {
+        this.timestamp = timestamp;
+        this.orderId = orderId;
+    }
+
+    public static OrderPageKey of(Order order) {
+        return new OrderPageKey(order.getTimestamp(), order.getOrderId());
+    }
+
+    public long getTimestamp() { return timestamp; }
+    public long getOrderId() { return orderId; }
+}
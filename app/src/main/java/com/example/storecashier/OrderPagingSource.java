@@ -0,0 +1,110 @@
+package com.example.storecashier;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+import androidx.room.InvalidationTracker;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import kotlin.Unit;
+
+/**
+ * 历史订单的键集分页数据源（按时间倒序）
+ * - Append：加载游标之后（更早）的订单
+ * - Prepend：加载游标之前（更新）的订单，新订单只会在顶部插入一行
+ * - Refresh：从游标处（含）向后加载，没有游标时从最新订单开始
+ * orders 表变化时自动失效，由 Pager 重新创建
+ */
+public class OrderPagingSource extends ListenableFuturePagingSource<OrderPageKey, Order> {
+    private final AppDatabase db;
+    private final OrderDao orderDao;
+    private final AtomicBoolean observerRegistered = new AtomicBoolean(false);
+    private final InvalidationTracker.Observer ordersObserver = new InvalidationTracker.Observer("orders") {
+        @Override
+        public void onInvalidated(@NonNull Set<String> tables) {
+            invalidate();
+        }
+    };
+
+    public OrderPagingSource(AppDatabase db) {
+        this.db = db;
+        this.orderDao = db.orderDao();
+        registerInvalidatedCallback(() -> {
+            if (observerRegistered.get()) {
+                db.getInvalidationTracker().removeObserver(ordersObserver);
+            }
+            return Unit.INSTANCE;
+        });
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<OrderPageKey, Order>> loadFuture(@NonNull LoadParams<OrderPageKey> params) {
+        ListenableFutureTask<LoadResult<OrderPageKey, Order>> task = ListenableFutureTask.create(() -> {
+            try {
+                return load(params);
+            } catch (Exception e) {
+                return new LoadResult.Error<>(e);
+            }
+        });
+        AppExecutors.readExecutor.execute(task);
+        return task;
+    }
+
+    private LoadResult<OrderPageKey, Order> load(LoadParams<OrderPageKey> params) {
+        // 观察者需要访问数据库，放在后台线程首次加载时注册
+        if (observerRegistered.compareAndSet(false, true)) {
+            db.getInvalidationTracker().addObserver(ordersObserver);
+        }
+        if (getInvalid()) {
+            return new LoadResult.Invalid<>();
+        }
+
+        OrderPageKey key = params.getKey();
+        int limit = params.getLoadSize();
+
+        if (params instanceof LoadParams.Prepend) {
+            List<Order> newer = orderDao.getOrdersAfter(key.getTimestamp(), key.getOrderId(), limit);
+            Collections.reverse(newer);
+            return new LoadResult.Page<>(newer,
+                    newer.size() < limit ? null : OrderPageKey.of(newer.get(0)),
+                    newer.isEmpty() ? null : OrderPageKey.of(newer.get(newer.size() - 1)));
+        }
+
+        List<Order> older;
+        OrderPageKey prevKey = null;
+        if (params instanceof LoadParams.Append) {
+            older = orderDao.getOrdersBefore(key.getTimestamp(), key.getOrderId(), limit);
+        } else if (key != null) {
+            older = orderDao.getOrdersAtOrBefore(key.getTimestamp(), key.getOrderId(), limit);
+            if (!older.isEmpty()) {
+                prevKey = OrderPageKey.of(older.get(0));
+            }
+        } else {
+            older = orderDao.getLatestOrders(limit);
+        }
+        return new LoadResult.Page<>(older, prevKey,
+                older.size() < limit ? null : OrderPageKey.of(older.get(older.size() - 1)));
+    }
+
+    @Nullable
+    @Override
+    public OrderPageKey getRefreshKey(@NonNull PagingState<OrderPageKey, Order> state) {
+        Integer anchorPosition = state.getAnchorPosition();
+        if (anchorPosition == null) {
+            return null;
+        }
+        // 从锚点往前半页开始刷新，保持当前可见区域不跳动
+        int start = Math.max(0, anchorPosition - state.getConfig().pageSize / 2);
+        Order order = state.closestItemToPosition(start);
+        return order == null ? null : OrderPageKey.of(order);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.storecashier;
+
+import java.nio.charset.Charset;
+
+/**
+ * 汉字拼音首字母（用于“kkkl”搜“可口可乐”）
+ * GB2312 一级汉字按拼音排序，按区位码落在哪个声母区间即可得到首字母；
+ * 二级汉字（按部首排序的生僻字）没有首字母
+ */
+public class PinyinUtil {
+    private static final Charset GB2312 = Charset.forName("GB2312");
+
+    // 各声母在 GB2312 中起始的区位码，最后一个为一级汉字结束位置
+    private static final int[] SECTION_START = {
+            1601, 1637, 1833, 2078, 2274, 2302, 2433, 2594, 2787, 3106, 3212,
+            3472, 3635, 3722, 3730, 3858, 4027, 4086, 4390, 4558, 4684, 4925, 5249, 5590
+    };
+    private static final char[] SECTION_LETTER = {
+            'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'j', 'k', 'l',
+            'm', 'n', 'o', 'p', 'q', 'r', 's', 't', 'w', 'x', 'y', 'z'
+    };
+
+    public static boolean isChinese(char c) {
+        return c >= '一' && c <= '龥';
+    }
+
+    /**
+     * 单个汉字的拼音首字母，不是一级汉字返回 0
+     */
+    public static char initial(char c) {
+        if (!isChinese(c)) return 0;
+        byte[] bytes = String.valueOf(c).getBytes(GB2312);
+        if (bytes.length != 2) return 0;
+        int code = ((bytes[0] & 0xFF) - 160) * 100 + ((bytes[1] & 0xFF) - 160);
+        for (int i = 0; i < SECTION_LETTER.length; i++) {
+            if (code >= SECTION_START[i] && code < SECTION_START[i + 1]) {
+                return SECTION_LETTER[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 字符串中所有汉字的拼音首字母，如“可口可乐500ml”返回“kkkl”
+     */
+    public static String initials(String text) {
+        if (text == null) return "";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char letter = initial(text.charAt(i));
+            if (letter != 0) {
+                sb.append(letter);
+            }
+        }
+        return sb.toString();
+    }
+}
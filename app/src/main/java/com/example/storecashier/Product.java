@@ -18,6 +18,8 @@ public class Product implements Parcelable {
     private int stock; // 库存数量
     private String category; // 商品分类
     private String imagePath; // 商品图片本地路径
+    private String thumbnailPath; // 列表用缩略图本地路径
+    private String searchTokens; // 全文检索用的分词（由名称和分类生成，见 ProductSearch）
 
     // 构造方法（Room 使用无参构造方法）
     public Product() {}
@@ -32,6 +34,20 @@ public class Product implements Parcelable {
         this.imagePath = imagePath;
     }
 
+    // 拷贝构造：编辑时修改副本，不影响列表/缓存中的实例
+    @Ignore
+    public Product(Product other) {
+        this.id = other.id;
+        this.barcode = other.barcode;
+        this.name = other.name;
+        this.price = other.price;
+        this.stock = other.stock;
+        this.category = other.category;
+        this.imagePath = other.imagePath;
+        this.thumbnailPath = other.thumbnailPath;
+        this.searchTokens = other.searchTokens;
+    }
+
     // Parcelable 构造方法
     @Ignore
     protected Product(Parcel in) {
@@ -42,6 +58,7 @@ public class Product implements Parcelable {
         stock = in.readInt();
         category = in.readString();
         imagePath = in.readString();
+        thumbnailPath = in.readString();
     }
 
     public static final Creator<Product> CREATOR = new Creator<Product>() {
@@ -62,15 +79,25 @@ public class Product implements Parcelable {
     public String getBarcode() { return barcode; }
     public void setBarcode(String barcode) { this.barcode = barcode; }
     public String getName() { return name; }
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) { this.name = name; this.searchTokens = null; }
     public double getPrice() { return price; }
     public void setPrice(double price) { this.price = price; }
     public int getStock() { return stock; }
     public void setStock(int stock) { this.stock = stock; }
     public String getCategory() { return category; }
-    public void setCategory(String category) { this.category = category; }
+    public void setCategory(String category) { this.category = category; this.searchTokens = null; }
     public String getImagePath() { return imagePath; }
     public void setImagePath(String imagePath) { this.imagePath = imagePath; }
+    public String getThumbnailPath() { return thumbnailPath; }
+    public void setThumbnailPath(String thumbnailPath) { this.thumbnailPath = thumbnailPath; }
+    // 未生成或名称/分类修改过时重新生成，入库时总是最新的
+    public String getSearchTokens() {
+        if (searchTokens == null) {
+            searchTokens = ProductSearch.buildTokens(name, category);
+        }
+        return searchTokens;
+    }
+    public void setSearchTokens(String searchTokens) { this.searchTokens = searchTokens; }
 
     // Parcelable 方法
     @Override
@@ -87,5 +114,6 @@ public class Product implements Parcelable {
         dest.writeInt(stock);
         dest.writeString(category);
         dest.writeString(imagePath);
+        dest.writeString(thumbnailPath);
     }
 }
\ No newline at end of file
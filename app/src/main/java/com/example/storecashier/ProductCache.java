@@ -0,0 +1,117 @@
+package com.example.storecashier;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 条码 → 商品 的内存缓存（有界 LRU，写穿）
+ * 扫码结算时优先命中缓存，避免每次扫码都走一次 SQLite 查询
+ * 写时复制：缓存只保存自己的副本，更新库存时换成新副本，不修改已经交出去的实例
+ * （购物车各行在主线程读取这些实例，而库存更新发生在写通道）
+ */
+public class ProductCache {
+    private final int maxSize;
+    private final LinkedHashMap<String, Product> cache;
+
+    // 每次写入/失效都会递增，用于丢弃“读库期间缓存已被修改”的旧数据
+    private long version = 0;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public ProductCache(int maxSize) {
+        this.maxSize = maxSize;
+        // accessOrder = true，按访问顺序淘汰最久未用的商品
+        this.cache = new LinkedHashMap<String, Product>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Product> eldest) {
+                return size() > ProductCache.this.maxSize;
+            }
+        };
+    }
+
+    public synchronized Product get(String barcode) {
+        Product product = cache.get(barcode);
+        if (product != null) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        return product;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    // 写穿：数据库写入成功后同步更新缓存
+    public synchronized void put(Product product) {
+        if (product == null || product.getBarcode() == null) return;
+        version++;
+        cache.put(product.getBarcode(), new Product(product));
+    }
+
+    // 读库回填：仅当读库期间缓存没有被修改过才写入，避免旧数据覆盖新数据
+    public synchronized void putIfFresh(Product product, long expectedVersion) {
+        if (product == null || product.getBarcode() == null) return;
+        if (version != expectedVersion) return;
+        cache.put(product.getBarcode(), new Product(product));
+    }
+
+    public synchronized void putAllIfFresh(List<Product> products, long expectedVersion) {
+        if (products == null || version != expectedVersion) return;
+        for (Product product : products) {
+            if (product.getBarcode() != null) {
+                cache.put(product.getBarcode(), new Product(product));
+            }
+        }
+    }
+
+    public synchronized void updateStock(String barcode, int newStock) {
+        version++;
+        Product cached = cache.get(barcode);
+        if (cached != null) {
+            Product updated = new Product(cached);
+            updated.setStock(newStock);
+            cache.put(barcode, updated);
+        }
+    }
+
+    public synchronized void remove(String barcode) {
+        version++;
+        cache.remove(barcode);
+    }
+
+    public synchronized void clear() {
+        version++;
+        cache.clear();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public String getStats() {
+        long hits = hitCount.get();
+        long misses = missCount.get();
+        long total = hits + misses;
+        double hitRate = total == 0 ? 0.0 : hits * 100.0 / total;
+        return String.format(Locale.getDefault(), "命中 %d，未命中 %d，命中率 %.1f%%，缓存 %d/%d",
+                hits, misses, hitRate, size(), maxSize);
+    }
+}
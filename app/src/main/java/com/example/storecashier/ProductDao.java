@@ -1,5 +1,7 @@
 package com.example.storecashier;
 
+import android.database.Cursor;
+
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
@@ -24,17 +26,90 @@ public interface ProductDao {
     @Query("SELECT * FROM product WHERE barcode = :barcode LIMIT 1")
     Product getProductByBarcode(String barcode);
 
+    // 调用方负责分块（每块不超过 SQLite 参数上限）
+    @Query("SELECT * FROM product WHERE barcode IN (:barcodes)")
+    List<Product> getProductsByBarcodes(List<String> barcodes);
+
     @Query("SELECT * FROM product ORDER BY name ASC")
     LiveData<List<Product>> getAllProducts();
 
     @Query("SELECT * FROM product ORDER BY name ASC")
     List<Product> getAllProductsSync();
 
+    // 流式导出使用，调用方负责关闭游标
+    @Query("SELECT * FROM product ORDER BY id ASC")
+    Cursor getAllProductsCursor();
+
+    // 同一张图片可能被多个商品共用，只返回一次
+    @Query("SELECT DISTINCT imagePath FROM product WHERE imagePath IS NOT NULL AND imagePath != ''")
+    List<String> getAllImagePaths();
+
+    // 被任意商品引用的图片文件（主图和缩略图，UNION 去重），图片垃圾回收使用
+    @Query("SELECT imagePath FROM product WHERE imagePath IS NOT NULL AND imagePath != '' " +
+            "UNION SELECT thumbnailPath FROM product WHERE thumbnailPath IS NOT NULL AND thumbnailPath != ''")
+    List<String> getReferencedImagePaths();
+
+    // 有主图但还没有缩略图的商品（旧数据、云恢复）
+    @Query("SELECT * FROM product WHERE imagePath IS NOT NULL AND imagePath != '' AND thumbnailPath IS NULL")
+    List<Product> getProductsMissingThumbnail();
+
+    @Query("UPDATE product SET thumbnailPath = :thumbnailPath WHERE id = :id")
+    void updateThumbnailPath(int id, String thumbnailPath);
+
+    // 启动时预热条码缓存：按 :since 以来的销量从高到低，没有销量的商品排在最后
+    @Query("SELECT p.* FROM product p LEFT JOIN (SELECT barcode, SUM(quantity) AS sold FROM sales_sku_daily " +
+            "WHERE dayStart >= :since GROUP BY barcode) s ON s.barcode = p.barcode " +
+            "ORDER BY IFNULL(s.sold, 0) DESC LIMIT :limit")
+    List<Product> getProductsForCache(long since, int limit);
+
     @Query("UPDATE product SET stock = :newStock WHERE barcode = :barcode")
     void updateStock(String barcode, int newStock);
 
-    @Query("UPDATE product SET name = :name, price = :price, stock = :stock WHERE barcode = :barcode")
-    void updateProductInfo(String barcode, String name, double price, int stock);
+    @Query("SELECT barcode, stock FROM product WHERE barcode IN (:barcodes)")
+    List<StockLevel> getStockLevels(List<String> barcodes);
+
+    @Query("UPDATE product SET name = :name, searchTokens = :searchTokens, price = :price, stock = :stock WHERE barcode = :barcode")
+    void updateProductInfo(String barcode, String name, String searchTokens, double price, int stock);
+
+    /**
+     * 全文检索商品，match 由 ProductSearch.toMatchQuery 生成，raw 为用户原始输入
+     * 排序：条码完全相同 > 条码前缀 > 名称前缀 > 其他，同档名称短的优先
+     */
+    @Query("SELECT product.* FROM product JOIN product_fts ON product.id = product_fts.rowid " +
+            "WHERE product_fts MATCH :match " +
+            "ORDER BY CASE WHEN product.barcode = :raw THEN 0 " +
+            "WHEN product.barcode LIKE :raw || '%' THEN 1 " +
+            "WHEN product.name LIKE :raw || '%' THEN 2 ELSE 3 END, " +
+            "length(product.name), product.name " +
+            "LIMIT :limit")
+    LiveData<List<Product>> searchProducts(String match, String raw, int limit);
+
+    @Query("SELECT product.* FROM product JOIN product_fts ON product.id = product_fts.rowid " +
+            "WHERE product_fts MATCH :match " +
+            "ORDER BY CASE WHEN product.barcode = :raw THEN 0 " +
+            "WHEN product.barcode LIKE :raw || '%' THEN 1 " +
+            "WHEN product.name LIKE :raw || '%' THEN 2 ELSE 3 END, " +
+            "length(product.name), product.name " +
+            "LIMIT :limit")
+    List<Product> searchProductsSync(String match, String raw, int limit);
+
+    // ======== 批量操作（管理模式），调用方负责分块（每块不超过 SQLite 参数上限）并包在一个事务中 ========
+
+    @Query("SELECT * FROM product WHERE id IN (:ids)")
+    List<Product> getProductsByIds(List<Integer> ids);
+
+    @Query("DELETE FROM product WHERE id IN (:ids)")
+    int deleteByIds(List<Integer> ids);
+
+    @Query("SELECT id, name FROM product WHERE id IN (:ids)")
+    List<ProductName> getProductNamesByIds(List<Integer> ids);
+
+    // 按百分比调价，结果保留两位小数（分）
+    @Query("UPDATE product SET price = ROUND(price * (100 + :percent) / 100.0, 2) WHERE id IN (:ids)")
+    int adjustPriceByPercent(List<Integer> ids, double percent);
+
+    @Query("UPDATE product SET stock = :stock WHERE id IN (:ids)")
+    int setStock(List<Integer> ids, int stock);
 
     @Query("SELECT DISTINCT category FROM product WHERE category IS NOT NULL AND category != ''")
     LiveData<List<String>> getAllCategories();
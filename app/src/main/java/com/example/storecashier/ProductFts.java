@@ -0,0 +1,27 @@
+package com.example.storecashier;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+/**
+ * product 表的全文索引（外部内容表），由 Room 生成的触发器与 product 保持同步
+ * rowid 即 product.id
+ */
+@Fts4(contentEntity = Product.class)
+@Entity(tableName = "product_fts")
+public class ProductFts {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private int rowid;
+    private String barcode;
+    private String searchTokens;
+
+    public int getRowid() { return rowid; }
+    public void setRowid(int rowid) { this.rowid = rowid; }
+    public String getBarcode() { return barcode; }
+    public void setBarcode(String barcode) { this.barcode = barcode; }
+    public String getSearchTokens() { return searchTokens; }
+    public void setSearchTokens(String searchTokens) { this.searchTokens = searchTokens; }
+}
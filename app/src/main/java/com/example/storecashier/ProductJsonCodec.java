@@ -0,0 +1,204 @@
+package com.example.storecashier;
+
+import android.database.Cursor;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 商品 JSON 的流式编解码，格式与 Gson 序列化 List<Product> 完全一致
+ * - 导出：从 Room 游标逐行写出，不在内存中构造整个商品列表或 JSON 字符串
+ * - 导入：逐条解析，每 chunkSize 条作为一个事务批量写入
+ * 内存占用与商品总数无关
+ */
+public class ProductJsonCodec {
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+    // 增量备份时按 id 分桶，每桶最多包含的 id 数
+    public static final int ID_BUCKET_SIZE = 256;
+
+    public interface ProgressListener {
+        void onProgress(int rowsProcessed);
+    }
+
+    // 分块导出时接收每个数据块（一个 JSON 数组）
+    public interface ChunkSink {
+        void onChunk(byte[] json, int rows) throws IOException;
+    }
+
+    // 导入时在入库前修改商品（如恢复时重写图片路径）
+    public interface RowTransformer {
+        void transform(Product product);
+    }
+
+    private final ProductDao productDao;
+    private final int chunkSize;
+    private final Gson gson = new Gson();
+
+    public ProductJsonCodec(ProductDao productDao) {
+        this(productDao, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ProductJsonCodec(ProductDao productDao, int chunkSize) {
+        this.productDao = productDao;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 导出全部商品，需在后台线程调用
+     * @return 导出的行数
+     */
+    public int exportAll(Writer out, ProgressListener listener) throws IOException {
+        try (Cursor cursor = productDao.getAllProductsCursor()) {
+            JsonWriter writer = new JsonWriter(out);
+            writer.beginArray();
+            int rows = writeRows(writer, cursor, listener);
+            writer.endArray();
+            writer.flush();
+            return rows;
+        }
+    }
+
+    /**
+     * 按 id 分桶导出商品，每个桶一个 JSON 数组
+     * 修改/删除某个商品只会改变所在桶的内容，新增商品只会改变最后一个桶，
+     * 因此按内容哈希去重后每次备份只需上传变化的桶
+     * @return 导出的行数
+     */
+    public int exportChunks(ChunkSink sink) throws IOException {
+        try (Cursor cursor = productDao.getAllProductsCursor()) {
+            ProductColumns columns = new ProductColumns(cursor);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            JsonWriter writer = null;
+            int currentBucket = -1;
+            int chunkRows = 0;
+            int rows = 0;
+            while (cursor.moveToNext()) {
+                int bucket = cursor.getInt(columns.id) / ID_BUCKET_SIZE;
+                if (bucket != currentBucket) {
+                    if (writer != null) {
+                        finishChunk(writer, buffer, sink, chunkRows);
+                    }
+                    buffer.reset();
+                    writer = new JsonWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8));
+                    writer.beginArray();
+                    currentBucket = bucket;
+                    chunkRows = 0;
+                }
+                writeRow(writer, cursor, columns);
+                chunkRows++;
+                rows++;
+            }
+            if (writer != null) {
+                finishChunk(writer, buffer, sink, chunkRows);
+            }
+            return rows;
+        }
+    }
+
+    private static void finishChunk(JsonWriter writer, ByteArrayOutputStream buffer, ChunkSink sink, int rows) throws IOException {
+        writer.endArray();
+        writer.flush();
+        sink.onChunk(buffer.toByteArray(), rows);
+    }
+
+    /**
+     * 将游标中剩余的商品行逐条写入已 beginArray 的 JsonWriter
+     */
+    public int writeRows(JsonWriter writer, Cursor cursor, ProgressListener listener) throws IOException {
+        ProductColumns columns = new ProductColumns(cursor);
+        int rows = 0;
+        while (cursor.moveToNext()) {
+            writeRow(writer, cursor, columns);
+            rows++;
+            if (listener != null && rows % chunkSize == 0) {
+                listener.onProgress(rows);
+            }
+        }
+        if (listener != null) {
+            listener.onProgress(rows);
+        }
+        return rows;
+    }
+
+    public static void writeRow(JsonWriter writer, Cursor cursor, ProductColumns columns) throws IOException {
+        writer.beginObject();
+        writer.name("id").value(cursor.getInt(columns.id));
+        writeString(writer, "barcode", cursor, columns.barcode);
+        writeString(writer, "name", cursor, columns.name);
+        writer.name("price").value(cursor.getDouble(columns.price));
+        writer.name("stock").value(cursor.getInt(columns.stock));
+        writeString(writer, "category", cursor, columns.category);
+        writeString(writer, "imagePath", cursor, columns.imagePath);
+        writeString(writer, "thumbnailPath", cursor, columns.thumbnailPath);
+        writer.endObject();
+    }
+
+    // 与 Gson 默认行为一致：null 字段不输出
+    private static void writeString(JsonWriter writer, String name, Cursor cursor, int column) throws IOException {
+        if (!cursor.isNull(column)) {
+            writer.name(name).value(cursor.getString(column));
+        }
+    }
+
+    /**
+     * 流式导入商品（条码冲突时覆盖），需在后台线程调用
+     * @param transformer 可为 null
+     * @return 导入的行数
+     */
+    public int importAll(Reader in, RowTransformer transformer, ProgressListener listener) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        reader.beginArray();
+        List<Product> batch = new ArrayList<>(chunkSize);
+        int rows = 0;
+        while (reader.hasNext()) {
+            Product product = gson.fromJson(reader, Product.class);
+            if (transformer != null) {
+                transformer.transform(product);
+            }
+            batch.add(product);
+            if (batch.size() >= chunkSize) {
+                productDao.insertAll(batch);
+                rows += batch.size();
+                batch = new ArrayList<>(chunkSize);
+                if (listener != null) {
+                    listener.onProgress(rows);
+                }
+            }
+        }
+        reader.endArray();
+        if (!batch.isEmpty()) {
+            productDao.insertAll(batch);
+            rows += batch.size();
+        }
+        if (listener != null) {
+            listener.onProgress(rows);
+        }
+        return rows;
+    }
+
+    // product 表的列下标，避免逐行按名字查找
+    public static class ProductColumns {
+        final int id, barcode, name, price, stock, category, imagePath, thumbnailPath;
+
+        public ProductColumns(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow("id");
+            barcode = cursor.getColumnIndexOrThrow("barcode");
+            name = cursor.getColumnIndexOrThrow("name");
+            price = cursor.getColumnIndexOrThrow("price");
+            stock = cursor.getColumnIndexOrThrow("stock");
+            category = cursor.getColumnIndexOrThrow("category");
+            imagePath = cursor.getColumnIndexOrThrow("imagePath");
+            thumbnailPath = cursor.getColumnIndexOrThrow("thumbnailPath");
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.storecashier;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CheckBox;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.Glide;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 库存商品列表：后台线程对比新旧列表，只刷新变化的行
+ * - 稳定 ID 使用 Product.id
+ * - 选中状态按商品 id 记录，切换勾选、进出管理模式只刷新复选框，不重新加载图片
+ */
+public class ProductListAdapter extends ListAdapter<Product, ProductListAdapter.ViewHolder> {
+    // 局部刷新：仅更新复选框
+    private static final Object PAYLOAD_SELECTION = new Object();
+
+    private static final DiffUtil.ItemCallback<Product> DIFF_CALLBACK = new DiffUtil.ItemCallback<Product>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+            return oldItem.getStock() == newItem.getStock()
+                    && oldItem.getPrice() == newItem.getPrice()
+                    && Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getBarcode(), newItem.getBarcode())
+                    && Objects.equals(oldItem.getCategory(), newItem.getCategory())
+                    && Objects.equals(oldItem.getThumbnailPath(), newItem.getThumbnailPath())
+                    && Objects.equals(oldItem.getImagePath(), newItem.getImagePath());
+        }
+    };
+
+    public interface Listener {
+        void onProductLongClick(Product product);
+        void onSelectionChanged(int selectedCount);
+    }
+
+    private final Listener listener;
+    private final Set<Integer> selectedIds = new HashSet<>();
+    private boolean manageMode = false;
+
+    public ProductListAdapter(Listener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getId();
+    }
+
+    public boolean isManageMode() {
+        return manageMode;
+    }
+
+    // 进出管理模式都会清空选中
+    public void setManageMode(boolean manageMode) {
+        this.manageMode = manageMode;
+        selectedIds.clear();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+    }
+
+    public Set<Integer> getSelectedIds() {
+        return new HashSet<>(selectedIds);
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_product, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+
+        holder.itemView.setOnLongClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) return false;
+            listener.onProductLongClick(getItem(position));
+            return true;
+        });
+        holder.cbSelect.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) return;
+            int id = getItem(position).getId();
+            if (holder.cbSelect.isChecked()) {
+                selectedIds.add(id);
+            } else {
+                selectedIds.remove(id);
+            }
+            listener.onSelectionChanged(selectedIds.size());
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_SELECTION)) {
+            bindSelection(holder, getItem(position));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Product product = getItem(position);
+        holder.tvName.setText(product.getName());
+
+        // 列表只加载缩略图
+        Glide.with(holder.itemView.getContext())
+                .load(ImagePipeline.listImageFile(product))
+                .placeholder(R.drawable.default_img)
+                .error(R.drawable.default_img)
+                .into(holder.ivIcon);
+
+        // 设置分类显示
+        if (product.getCategory() != null && !product.getCategory().isEmpty()) {
+            holder.tvCategory.setVisibility(View.VISIBLE);
+            holder.tvCategory.setText(product.getCategory());
+        } else {
+            holder.tvCategory.setVisibility(View.GONE);
+        }
+
+        holder.tvBarcode.setText(product.getBarcode());
+        holder.tvPrice.setText(String.format("%.2f元", product.getPrice())); // 价格保留2位小数
+        holder.tvStock.setText(String.valueOf(product.getStock()));
+
+        bindSelection(holder, product);
+    }
+
+    private void bindSelection(ViewHolder holder, Product product) {
+        if (manageMode) {
+            holder.cbSelect.setVisibility(View.VISIBLE);
+            holder.cbSelect.setChecked(selectedIds.contains(product.getId()));
+        } else {
+            holder.cbSelect.setVisibility(View.GONE);
+            holder.cbSelect.setChecked(false);
+        }
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        CheckBox cbSelect;
+        ImageView ivIcon;
+        TextView tvName, tvCategory, tvBarcode, tvPrice, tvStock;
+
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            cbSelect = itemView.findViewById(R.id.cb_select_product);
+            ivIcon = itemView.findViewById(R.id.iv_product_icon);
+            tvName = itemView.findViewById(R.id.tv_product_name);
+            tvCategory = itemView.findViewById(R.id.tv_product_category);
+            tvBarcode = itemView.findViewById(R.id.tv_product_barcode);
+            tvPrice = itemView.findViewById(R.id.tv_product_price);
+            tvStock = itemView.findViewById(R.id.tv_product_stock);
+        }
+    }
+}
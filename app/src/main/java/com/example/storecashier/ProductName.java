@@ -0,0 +1,21 @@
+package com.example.storecashier;
+
+/**
+ * 商品 id + 名称，批量改分类时重算检索分词用，不必读出整行
+ */
+public class ProductName {
+    private int id;
+    private String name;
+
+    public ProductName() {}
+
+    public ProductName(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+}
@@ -0,0 +1,100 @@
+package com.example.storecashier;
+
+import java.util.Locale;
+
+/**
+ * 商品全文检索（product_fts）的分词和查询构造
+ * FTS4 默认分词器不会切分中文，因此入库时把名称/分类中的每个汉字用空格隔开，
+ * 再附上拼音首字母；查询时中文按相邻汉字短语匹配，字母数字按前缀匹配
+ */
+public class ProductSearch {
+    public static final int INVENTORY_LIMIT = 200;
+    public static final int SUGGESTION_LIMIT = 20;
+
+    /**
+     * 生成商品的检索词，保存在 product.searchTokens 列
+     * 如“可口可乐 330ml” + “饮料” → “可 口 可 乐 330ml 饮 料 kkkl yl”
+     */
+    public static String buildTokens(String name, String category) {
+        StringBuilder sb = new StringBuilder();
+        appendTokens(sb, name);
+        appendTokens(sb, category);
+        appendWord(sb, PinyinUtil.initials(name));
+        appendWord(sb, PinyinUtil.initials(category));
+        return sb.toString();
+    }
+
+    private static void appendTokens(StringBuilder sb, String text) {
+        if (text == null) return;
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (PinyinUtil.isChinese(c)) {
+                appendWord(sb, word.toString());
+                word.setLength(0);
+                appendWord(sb, String.valueOf(c));
+            } else if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else {
+                appendWord(sb, word.toString());
+                word.setLength(0);
+            }
+        }
+        appendWord(sb, word.toString());
+    }
+
+    private static void appendWord(StringBuilder sb, String word) {
+        if (word == null || word.isEmpty()) return;
+        if (sb.length() > 0) sb.append(' ');
+        sb.append(word);
+    }
+
+    /**
+     * 把用户输入转换为 FTS MATCH 表达式，多个词之间为“且”
+     * “可乐 330” → "可 乐" 330*
+     * @return 输入中没有可检索的字符时返回 null
+     */
+    public static String toMatchQuery(String input) {
+        if (input == null) return null;
+        String text = input.trim().toLowerCase(Locale.ROOT);
+        StringBuilder query = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        StringBuilder phrase = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (PinyinUtil.isChinese(c)) {
+                flushWord(query, word);
+                if (phrase.length() > 0) phrase.append(' ');
+                phrase.append(c);
+            } else if (isAsciiLetterOrDigit(c)) {
+                flushPhrase(query, phrase);
+                word.append(c);
+            } else {
+                // 其余字符（空格、标点、FTS 语法字符）都作为分隔符
+                flushWord(query, word);
+                flushPhrase(query, phrase);
+            }
+        }
+        flushWord(query, word);
+        flushPhrase(query, phrase);
+        return query.length() == 0 ? null : query.toString();
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+    }
+
+    private static void flushWord(StringBuilder query, StringBuilder word) {
+        if (word.length() == 0) return;
+        if (query.length() > 0) query.append(' ');
+        query.append(word).append('*');
+        word.setLength(0);
+    }
+
+    private static void flushPhrase(StringBuilder query, StringBuilder phrase) {
+        if (phrase.length() == 0) return;
+        if (query.length() > 0) query.append(' ');
+        query.append('"').append(phrase).append('"');
+        phrase.setLength(0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.storecashier;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 结算页边输边搜的候选列表，Filter 在后台线程查询 product_fts
+ */
+public class ProductSearchAdapter extends BaseAdapter implements Filterable {
+    private final ProductViewModel productViewModel;
+    private List<Product> results = new ArrayList<>();
+
+    public ProductSearchAdapter(ProductViewModel productViewModel) {
+        this.productViewModel = productViewModel;
+    }
+
+    @Override
+    public int getCount() {
+        return results.size();
+    }
+
+    @Override
+    public Product getItem(int position) {
+        return results.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return results.get(position).getId();
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        if (convertView == null) {
+            convertView = LayoutInflater.from(parent.getContext())
+                    .inflate(android.R.layout.simple_dropdown_item_1line, parent, false);
+        }
+        Product product = results.get(position);
+        ((TextView) convertView).setText(product.getName() + "  " + product.getBarcode()
+                + "  " + String.format("%.2f元", product.getPrice()));
+        return convertView;
+    }
+
+    @Override
+    public Filter getFilter() {
+        return filter;
+    }
+
+    private final Filter filter = new Filter() {
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            // 运行在 Filter 自己的后台线程
+            List<Product> products = constraint == null
+                    ? new ArrayList<>()
+                    : productViewModel.searchProductsSync(constraint.toString(), ProductSearch.SUGGESTION_LIMIT);
+            FilterResults filterResults = new FilterResults();
+            filterResults.values = products;
+            filterResults.count = products.size();
+            return filterResults;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults filterResults) {
+            results = filterResults.values != null ? (List<Product>) filterResults.values : new ArrayList<>();
+            if (filterResults.count > 0) {
+                notifyDataSetChanged();
+            } else {
+                notifyDataSetInvalidated();
+            }
+        }
+
+        @Override
+        public CharSequence convertResultToString(Object resultValue) {
+            return ((Product) resultValue).getName();
+        }
+    };
+}
@@ -5,38 +5,160 @@ import android.app.Application;
 import androidx.annotation.NonNull;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
+import androidx.sqlite.db.SupportSQLiteStatement;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ProductViewModel extends AndroidViewModel {
+    // 条码缓存容量：覆盖高峰期反复扫描的常用商品
+    private static final int PRODUCT_CACHE_SIZE = 1000;
+    // 预热时统计销量的天数
+    private static final int CACHE_WARM_UP_DAYS = 30;
+    private static final int ORDER_PAGE_SIZE = 50;
+    private static final int SALES_REPORT_TOP_SKUS = 10;
+    // 批量操作每条语句最多绑定的 id 数（低版本 SQLite 参数上限为 999）
+    private static final int BULK_CHUNK_SIZE = 500;
+    private static final String SQL_UPDATE_CATEGORY =
+            "UPDATE product SET category = ?, searchTokens = ? WHERE id = ?";
+
     private ProductDao productDao;
     private OrderDao orderDao;
     private AppDatabase db;
+    private CheckoutEngine checkoutEngine;
+    private CheckoutOutbox checkoutOutbox;
+    // 所有未结算单子和待入库订单占用的库存，扫码时据此提示超卖
+    private final StockLedger stockLedger = new StockLedger();
+    private SalesRollup salesRollup;
     private LiveData<List<Product>> allProducts;
+    // 库存页搜索框内容，为空时显示全部商品
+    private final MutableLiveData<String> inventoryQuery = new MutableLiveData<>("");
+    private LiveData<List<Product>> inventoryProducts;
+    private LiveData<PagingData<Order>> orderPages;
+    private final ProductCache productCache = new ProductCache(PRODUCT_CACHE_SIZE);
 
     public ProductViewModel(@NonNull Application application) {
         super(application);
         db = AppDatabase.getDatabase(application);
         productDao = db.productDao();
         orderDao = db.orderDao();
+        checkoutEngine = new CheckoutEngine(db);
+        // 先于购物车日志重放入队，见 CheckoutOutbox.start
+        checkoutOutbox = new CheckoutOutbox(application.getFilesDir(), db, checkoutEngine, stockLedger, this::onCheckoutCommitted);
+        checkoutOutbox.start();
+        salesRollup = new SalesRollup(db);
         allProducts = productDao.getAllProducts();
+        inventoryProducts = Transformations.switchMap(inventoryQuery, query -> {
+            String match = ProductSearch.toMatchQuery(query);
+            return match == null
+                    ? allProducts
+                    : productDao.searchProducts(match, query.trim(), ProductSearch.INVENTORY_LIMIT);
+        });
+        warmUpProductCache();
+        backfillThumbnails();
+        collectUnusedImages();
+    }
+
+    // 启动时按近期销量预热条码缓存，首次扫码即可命中
+    private void warmUpProductCache() {
+        AppExecutors.bulkExecutor.execute(() -> {
+            long version = productCache.getVersion();
+            long since = SalesRollup.dayStart(System.currentTimeMillis()) - CACHE_WARM_UP_DAYS * 24L * 60 * 60 * 1000;
+            List<Product> products = productDao.getProductsForCache(since, PRODUCT_CACHE_SIZE);
+            // 缓存按访问顺序淘汰，销量低的先放入，畅销品最后放入、最晚被淘汰
+            Collections.reverse(products);
+            productCache.putAllIfFresh(products, version);
+        });
+    }
+
+    // 为旧商品和云恢复的商品补生成缩略图
+    private void backfillThumbnails() {
+        AppExecutors.bulkExecutor.execute(() -> {
+            for (Product product : productDao.getProductsMissingThumbnail()) {
+                File imageFile = new File(product.getImagePath());
+                if (!imageFile.exists()) continue;
+                String thumbnailPath = ImagePipeline.createThumbnail(getApplication(), imageFile);
+                if (thumbnailPath != null) {
+                    productDao.updateThumbnailPath(product.getId(), thumbnailPath);
+                    productCache.remove(product.getBarcode());
+                }
+            }
+        });
+    }
+
+    // 清理没有商品引用的图片（换图、删商品后遗留的文件）
+    private void collectUnusedImages() {
+        AppExecutors.bulkExecutor.execute(() ->
+                ImageGarbageCollector.collect(getApplication(), productDao));
+    }
+
+    /**
+     * 绕过 ViewModel 直接写库（如导入、云恢复）后调用，清空并重新预热缓存
+     */
+    public void invalidateProductCache() {
+        productCache.clear();
+        warmUpProductCache();
+        backfillThumbnails();
+    }
+
+    public ProductCache getProductCache() {
+        return productCache;
     }
 
     public LiveData<List<Product>> getAllProducts() {
         return allProducts;
     }
 
+    // 库存页显示的商品：搜索框为空时为全部商品，否则为检索结果
+    public LiveData<List<Product>> getInventoryProducts() {
+        return inventoryProducts;
+    }
+
+    public void setInventoryQuery(String query) {
+        String current = inventoryQuery.getValue();
+        if (query == null) query = "";
+        if (!query.equals(current)) {
+            inventoryQuery.setValue(query);
+        }
+    }
+
+    /**
+     * 边输边搜的候选商品，需在后台线程调用
+     */
+    public List<Product> searchProductsSync(String query, int limit) {
+        String match = ProductSearch.toMatchQuery(query);
+        if (match == null) return new ArrayList<>();
+        return productDao.searchProductsSync(match, query.trim(), limit);
+    }
+
     public LiveData<List<String>> getAllCategories() {
         return productDao.getAllCategories();
     }
 
-    public LiveData<List<Order>> getAllOrders() {
-        return orderDao.getAllOrders();
+    // 历史订单分页流，随 ViewModel 缓存，页面重建时不必重新加载
+    public LiveData<PagingData<Order>> getOrderPages() {
+        if (orderPages == null) {
+            Pager<OrderPageKey, Order> pager = new Pager<>(
+                    new PagingConfig(ORDER_PAGE_SIZE, ORDER_PAGE_SIZE / 2, false),
+                    () -> new OrderPagingSource(db));
+            orderPages = PagingLiveData.cachedIn(PagingLiveData.getLiveData(pager), this);
+        }
+        return orderPages;
     }
 
     public void getOrderItems(long orderId, OnOrderItemsLoadedListener listener) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        AppExecutors.readExecutor.execute(() -> {
             List<OrderItem> items = orderDao.getOrderItemsSync(orderId);
             if (listener != null) {
                 listener.onLoaded(items);
@@ -49,41 +171,150 @@ public class ProductViewModel extends AndroidViewModel {
     }
 
     /**
-     * 处理结算：创建订单、记录明细、扣减库存
-     * 这是一个原子操作，必须在后台线程的事务中执行
+     * 异步结算（创建订单、记录明细、扣减库存在写通道的同一事务中完成）：订单落盘（预分配订单号）后
+     * 由 basketManager 删除该单并回调 onQueued，事务在写通道上后台提交，失败自动重试
+     * 删除该单不依赖界面，界面已销毁时 BasketManager 已关闭，finishCheckout 直接忽略
+     * 需在主线程调用
      */
-    public void processCheckout(List<CartItem> cartItems, double totalAmount, Runnable onComplete) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            db.runInTransaction(() -> {
-                // 1. 创建并插入订单
-                Order order = new Order(System.currentTimeMillis(), totalAmount);
-                long orderId = orderDao.insertOrder(order);
-
-                // 2. 准备订单明细
-                List<OrderItem> orderItems = new ArrayList<>();
-                for (CartItem cartItem : cartItems) {
-                    Product product = cartItem.getProduct();
-                    
-                    // 创建明细快照
-                    OrderItem orderItem = new OrderItem(
-                            orderId,
-                            product.getBarcode(),
-                            product.getName(),
-                            product.getPrice(),
-                            cartItem.getQuantity()
-                    );
-                    orderItems.add(orderItem);
-
-                    // 3. 扣减库存
-                    int newStock = product.getStock() - cartItem.getQuantity();
-                    productDao.updateStock(product.getBarcode(), newStock);
+    public void submitCheckout(BasketManager basketManager, Basket basket, CheckoutOutbox.OnQueuedListener onQueued) {
+        CartModel cart = basket.getCart();
+        List<CartItem> items = cart.snapshot();
+        long totalFen = cart.getTotalFen();
+        basketManager.beginCheckout(basket);
+        checkoutOutbox.submit(items, totalFen, basket.getJournal(), orderId -> {
+            basketManager.finishCheckout(basket);
+            onQueued.onQueued(orderId);
+        });
+    }
+
+    // 事务提交后用读回的最新库存刷新缓存，无需再查库
+    private void onCheckoutCommitted(CheckoutResult result) {
+        for (Map.Entry<String, Integer> entry : result.getResultingStock().entrySet()) {
+            productCache.updateStock(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // 超卖记录已在结算事务中写入，状态面板据此提示盘点
+    public LiveData<List<StockShortage>> getStockShortages() {
+        return orderDao.getShortages();
+    }
+
+    public void clearStockShortages() {
+        AppExecutors.writeExecutor.execute(orderDao::clearShortages);
+    }
+
+    public StockLedger getStockLedger() {
+        return stockLedger;
+    }
+
+    public LiveData<CheckoutOutbox.Status> getCheckoutStatus() {
+        return checkoutOutbox.getStatus();
+    }
+
+    public void retryFailedCheckouts() {
+        checkoutOutbox.retryFailed();
+    }
+
+    public interface OnCartRecoveredListener {
+        // 在后台线程回调，items 为显示顺序
+        void onRecovered(List<CartItem> items);
+    }
+
+    /**
+     * 重放购物车日志并按条码重新查出商品（单价沿用加购时的价格），已删除的商品丢弃
+     * 在写通道上执行，与日志的追加写入保持顺序
+     */
+    public void recoverCart(CartJournal journal, OnCartRecoveredListener listener) {
+        AppExecutors.writeExecutor.execute(() -> {
+            List<CartJournal.Entry> entries = journal.replay();
+            List<String> barcodes = new ArrayList<>(entries.size());
+            for (CartJournal.Entry entry : entries) {
+                barcodes.add(entry.getBarcode());
+            }
+            Map<String, Product> products = new HashMap<>();
+            for (int start = 0; start < barcodes.size(); start += BULK_CHUNK_SIZE) {
+                for (Product product : productDao.getProductsByBarcodes(barcodes.subList(start, Math.min(start + BULK_CHUNK_SIZE, barcodes.size())))) {
+                    products.put(product.getBarcode(), product);
                 }
+            }
 
-                // 4. 批量插入明细
-                orderDao.insertOrderItems(orderItems);
-            });
+            List<CartItem> items = new ArrayList<>(entries.size());
+            List<CartJournal.Entry> kept = new ArrayList<>(entries.size());
+            for (CartJournal.Entry entry : entries) {
+                Product product = products.get(entry.getBarcode());
+                if (product == null) continue;
+                items.add(lockedCartItem(product, entry.getQuantity(), entry.getUnitPriceFen()));
+                kept.add(entry);
+            }
+            if (kept.size() != entries.size()) {
+                journal.rewrite(kept);
+            } else {
+                journal.compactIfNeeded(kept);
+            }
+            listener.onRecovered(items);
+        });
+    }
 
-            // 事务完成后回调
+    /**
+     * 按精简快照中的商品 id 重新查出商品，恢复购物车（单价沿用快照中锁定的价格），已删除的商品丢弃
+     */
+    public void rehydrateCart(CartSnapshot snapshot, OnCartRecoveredListener listener) {
+        AppExecutors.readExecutor.execute(() -> {
+            List<Integer> ids = new ArrayList<>(snapshot.size());
+            for (int i = 0; i < snapshot.size(); i++) {
+                ids.add(snapshot.getProductId(i));
+            }
+            Map<Integer, Product> products = new HashMap<>();
+            for (int start = 0; start < ids.size(); start += BULK_CHUNK_SIZE) {
+                for (Product product : productDao.getProductsByIds(ids.subList(start, Math.min(start + BULK_CHUNK_SIZE, ids.size())))) {
+                    products.put(product.getId(), product);
+                }
+            }
+
+            List<CartItem> items = new ArrayList<>(snapshot.size());
+            for (int i = 0; i < snapshot.size(); i++) {
+                Product product = products.get(snapshot.getProductId(i));
+                if (product == null) continue;
+                items.add(lockedCartItem(product, snapshot.getQuantity(i), snapshot.getUnitPriceFen(i)));
+            }
+            listener.onRecovered(items);
+        });
+    }
+
+    // 恢复的商品行沿用加购时锁定的单价；现价不同时用副本，避免改动缓存中的商品
+    private static CartItem lockedCartItem(Product product, int quantity, long unitPriceFen) {
+        if (MoneyUtil.toFen(product.getPrice()) != unitPriceFen) {
+            product = new Product(product);
+            product.setPrice(MoneyUtil.toYuan(unitPriceFen));
+        }
+        return new CartItem(product, quantity);
+    }
+
+    public interface OnSalesReportLoadedListener {
+        void onLoaded(SalesReport report);
+    }
+
+    // 读取某天的销售报表（仅查询汇总表）
+    public void loadSalesReport(long timestamp, OnSalesReportLoadedListener listener) {
+        AppExecutors.readExecutor.execute(() -> {
+            SalesDao salesDao = db.salesDao();
+            long dayStart = SalesRollup.dayStart(timestamp);
+            long nextDayStart = SalesRollup.dayStart(dayStart + 36L * 60 * 60 * 1000);
+            SalesReport report = new SalesReport(dayStart,
+                    salesDao.getDaily(dayStart),
+                    salesDao.getHourly(dayStart, nextDayStart),
+                    salesDao.getCategorySales(dayStart),
+                    salesDao.getTopSkus(dayStart, SALES_REPORT_TOP_SKUS));
+            if (listener != null) {
+                listener.onLoaded(report);
+            }
+        });
+    }
+
+    // 从原始订单明细重建销售汇总，与结算共用串行写通道避免并发累加
+    public void rebuildSalesRollups(Runnable onComplete) {
+        AppExecutors.writeExecutor.execute(() -> {
+            salesRollup.rebuild();
             if (onComplete != null) {
                 onComplete.run();
             }
@@ -91,22 +322,135 @@ public class ProductViewModel extends AndroidViewModel {
     }
 
     public void insert(Product product) {
-        AppDatabase.databaseWriteExecutor.execute(() -> productDao.insert(product));
+        AppExecutors.writeExecutor.execute(() -> {
+            long id = productDao.insert(product);
+            if (id != -1) {
+                product.setId((int) id);
+                productCache.put(product);
+            }
+        });
+    }
+
+    public void insertAll(List<Product> products) {
+        AppExecutors.writeExecutor.execute(() -> {
+            productDao.insertAll(products);
+            invalidateProductCache();
+        });
     }
 
     public void update(Product product) {
-        AppDatabase.databaseWriteExecutor.execute(() -> productDao.update(product));
+        AppExecutors.writeExecutor.execute(() -> {
+            productDao.update(product);
+            productCache.put(product);
+        });
+    }
+
+    public void delete(Product product) {
+        AppExecutors.writeExecutor.execute(() -> {
+            productDao.delete(product);
+            productCache.remove(product.getBarcode());
+        });
     }
 
     public void updateStock(String barcode, int newStock) {
-        AppDatabase.databaseWriteExecutor.execute(() -> productDao.updateStock(barcode, newStock));
+        AppExecutors.writeExecutor.execute(() -> {
+            productDao.updateStock(barcode, newStock);
+            productCache.updateStock(barcode, newStock);
+        });
     }
 
     public void updateProductInfo(String barcode, String name, double price, int stock) {
-        AppDatabase.databaseWriteExecutor.execute(() -> productDao.updateProductInfo(barcode, name, price, stock));
+        AppExecutors.writeExecutor.execute(() -> {
+            // 名称变化需同步更新检索分词（分类不变）
+            Product current = productDao.getProductByBarcode(barcode);
+            String searchTokens = ProductSearch.buildTokens(name, current != null ? current.getCategory() : null);
+            productDao.updateProductInfo(barcode, name, searchTokens, price, stock);
+            productCache.remove(barcode);
+        });
     }
 
+    public interface OnBulkResultListener {
+        // 在后台线程回调，affectedRows 为实际修改的行数
+        void onResult(int affectedRows);
+    }
+
+    private interface ChunkOperation {
+        int apply(List<Integer> ids);
+    }
+
+    public void deleteByIds(Collection<Integer> ids, OnBulkResultListener listener) {
+        runBulk(ids, productDao::deleteByIds, listener);
+    }
+
+    /**
+     * 分类参与检索分词：分类和分词用同一条 UPDATE 写入，product_fts 的同步触发器每行只触发一次；
+     * 只读出 id 和名称，语句每块只编译一次
+     */
+    public void updateCategory(Collection<Integer> ids, String category, OnBulkResultListener listener) {
+        runBulk(ids, chunk -> {
+            int affected = 0;
+            SupportSQLiteStatement statement = db.compileStatement(SQL_UPDATE_CATEGORY);
+            try {
+                for (ProductName product : productDao.getProductNamesByIds(chunk)) {
+                    if (category == null) {
+                        statement.bindNull(1);
+                    } else {
+                        statement.bindString(1, category);
+                    }
+                    statement.bindString(2, ProductSearch.buildTokens(product.getName(), category));
+                    statement.bindLong(3, product.getId());
+                    affected += statement.executeUpdateDelete();
+                    statement.clearBindings();
+                }
+            } finally {
+                statement.close();
+            }
+            return affected;
+        }, listener);
+    }
+
+    public void adjustPriceByPercent(Collection<Integer> ids, double percent, OnBulkResultListener listener) {
+        runBulk(ids, chunk -> productDao.adjustPriceByPercent(chunk, percent), listener);
+    }
+
+    public void setStock(Collection<Integer> ids, int stock, OnBulkResultListener listener) {
+        runBulk(ids, chunk -> productDao.setStock(chunk, stock), listener);
+    }
+
+    /**
+     * 分块执行批量操作，全部放在一个事务中：要么全部成功，要么全部回滚，
+     * 且事务提交后只触发一次列表刷新
+     */
+    private void runBulk(Collection<Integer> ids, ChunkOperation operation, OnBulkResultListener listener) {
+        List<Integer> idList = new ArrayList<>(ids);
+        AppExecutors.writeExecutor.execute(() -> {
+            int affected = db.runInTransaction(() -> {
+                int count = 0;
+                for (int start = 0; start < idList.size(); start += BULK_CHUNK_SIZE) {
+                    count += operation.apply(idList.subList(start, Math.min(start + BULK_CHUNK_SIZE, idList.size())));
+                }
+                return count;
+            });
+            // 批量修改涉及的商品可能在缓存中，直接清空重建
+            invalidateProductCache();
+            if (listener != null) {
+                listener.onResult(affected);
+            }
+        });
+    }
+
+    /**
+     * 按条码查询商品：先查内存缓存，未命中再查库并回填
+     * 需在后台线程调用
+     */
     public Product getProductByBarcodeSync(String barcode) {
-        return productDao.getProductByBarcode(barcode);
+        Product cached = productCache.get(barcode);
+        if (cached != null) {
+            return cached;
+        }
+        long version = productCache.getVersion();
+        Product product = productDao.getProductByBarcode(barcode);
+        productCache.putIfFresh(product, version);
+        return product;
     }
 }
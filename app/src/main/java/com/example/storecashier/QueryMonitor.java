@@ -0,0 +1,222 @@
+package com.example.storecashier;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 数据库查询计时：包装 Room 的 SupportSQLiteOpenHelper，统计每条 SQL 的耗时、行数和发起的 DAO 方法
+ * - 查询耗时从发起到游标关闭，包含 DAO 逐行读取的时间；行数为游标总行数
+ * - 写语句（插入/更新/删除）按每次 execute 计时，行数为影响行数
+ * - 超过阈值的慢查询写入日志并保留最近 MAX_SLOW_LOG 条，供诊断页查看
+ * 调用方只在某条 SQL 第一次出现时通过调用栈识别，同一条 SQL 归到第一个调用方
+ */
+public final class QueryMonitor {
+    private static final String TAG = "QueryMonitor";
+    private static final String PREFS_NAME = "diagnostics";
+    private static final String KEY_SLOW_QUERY_MS = "slow_query_ms";
+    public static final long DEFAULT_SLOW_QUERY_MS = 50;
+    private static final int MAX_SLOW_LOG = 50;
+
+    private static final Map<String, QueryStats> statsBySql = new ConcurrentHashMap<>();
+    private static final ArrayDeque<String> slowLog = new ArrayDeque<>();
+    private static volatile long slowQueryThresholdNanos = DEFAULT_SLOW_QUERY_MS * 1_000_000;
+
+    private QueryMonitor() {}
+
+    public static SupportSQLiteOpenHelper.Factory wrap(SupportSQLiteOpenHelper.Factory delegate) {
+        return configuration -> wrapHelper(delegate.create(configuration));
+    }
+
+    public static void loadSettings(Context context) {
+        long millis = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+                .getLong(KEY_SLOW_QUERY_MS, DEFAULT_SLOW_QUERY_MS);
+        slowQueryThresholdNanos = millis * 1_000_000;
+    }
+
+    public static long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdNanos / 1_000_000;
+    }
+
+    public static void setSlowQueryThresholdMillis(Context context, long millis) {
+        slowQueryThresholdNanos = millis * 1_000_000;
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putLong(KEY_SLOW_QUERY_MS, millis)
+                .apply();
+    }
+
+    // 按总耗时从高到低排序
+    public static List<QueryStats> getStats() {
+        List<QueryStats> stats = new ArrayList<>(statsBySql.values());
+        stats.sort((a, b) -> Double.compare(b.getTotalMillis(), a.getTotalMillis()));
+        return stats;
+    }
+
+    // 最近的慢查询，最新的在前
+    public static List<String> getSlowLog() {
+        synchronized (slowLog) {
+            return new ArrayList<>(slowLog);
+        }
+    }
+
+    public static void reset() {
+        statsBySql.clear();
+        synchronized (slowLog) {
+            slowLog.clear();
+        }
+    }
+
+    private static void onExecuted(QueryStats stats, long elapsedNanos, int rows) {
+        stats.record(elapsedNanos, rows);
+        if (elapsedNanos < slowQueryThresholdNanos) return;
+
+        String entry = String.format(Locale.getDefault(), "%s  %s  %.1fms  %d 行\n  %s",
+                new SimpleDateFormat("HH:mm:ss", Locale.getDefault()).format(new Date()),
+                stats.getCaller(), elapsedNanos / 1_000_000.0, rows, stats.getSql());
+        Log.w(TAG, "Slow query: " + entry);
+        synchronized (slowLog) {
+            slowLog.addFirst(entry);
+            while (slowLog.size() > MAX_SLOW_LOG) {
+                slowLog.removeLast();
+            }
+        }
+    }
+
+    private static QueryStats statsFor(String sql) {
+        QueryStats stats = statsBySql.get(sql);
+        if (stats != null) return stats;
+        return statsBySql.computeIfAbsent(sql, key -> new QueryStats(key, findCaller()));
+    }
+
+    /**
+     * 从调用栈中找出发起查询的 DAO 方法（Room 生成的 XxxDao_Impl）
+     * LiveData / Paging 的异步查询只能看到生成的匿名类，记为“XxxDao(异步)”
+     */
+    private static String findCaller() {
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        String appFrame = null;
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            int implIndex = className.indexOf("Dao_Impl");
+            if (implIndex >= 0) {
+                String dao = className.substring(className.lastIndexOf('.') + 1, implIndex + 3);
+                return className.indexOf('$', implIndex) >= 0 ? dao + "(异步)" : dao + "." + frame.getMethodName();
+            }
+            if (appFrame == null && className.startsWith("com.example.storecashier.")
+                    && !className.startsWith(QueryMonitor.class.getName())) {
+                appFrame = className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+            }
+        }
+        return appFrame != null ? appFrame : "Room";
+    }
+
+    private static SupportSQLiteOpenHelper wrapHelper(SupportSQLiteOpenHelper helper) {
+        // Room 每次查询都会取一次数据库对象，缓存包装结果
+        Object[] cache = new Object[2];
+        return (SupportSQLiteOpenHelper) Proxy.newProxyInstance(QueryMonitor.class.getClassLoader(),
+                new Class<?>[]{SupportSQLiteOpenHelper.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(helper, method, args);
+                    if (!(result instanceof SupportSQLiteDatabase)) return result;
+                    synchronized (cache) {
+                        if (cache[0] != result) {
+                            cache[0] = result;
+                            cache[1] = wrapDatabase((SupportSQLiteDatabase) result);
+                        }
+                        return cache[1];
+                    }
+                });
+    }
+
+    private static SupportSQLiteDatabase wrapDatabase(SupportSQLiteDatabase database) {
+        return (SupportSQLiteDatabase) Proxy.newProxyInstance(QueryMonitor.class.getClassLoader(),
+                new Class<?>[]{SupportSQLiteDatabase.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "query": {
+                            String sql = args[0] instanceof SupportSQLiteQuery
+                                    ? ((SupportSQLiteQuery) args[0]).getSql() : (String) args[0];
+                            QueryStats stats = statsFor(sql);
+                            long start = System.nanoTime();
+                            Cursor cursor = (Cursor) invoke(database, method, args);
+                            return new TimedCursor(cursor, stats, start);
+                        }
+                        case "compileStatement": {
+                            SupportSQLiteStatement statement = (SupportSQLiteStatement) invoke(database, method, args);
+                            return wrapStatement(statement, statsFor((String) args[0]));
+                        }
+                        default:
+                            return invoke(database, method, args);
+                    }
+                });
+    }
+
+    private static SupportSQLiteStatement wrapStatement(SupportSQLiteStatement statement, QueryStats stats) {
+        return (SupportSQLiteStatement) Proxy.newProxyInstance(QueryMonitor.class.getClassLoader(),
+                new Class<?>[]{SupportSQLiteStatement.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (!name.startsWith("execute") && !name.startsWith("simpleQuery")) {
+                        return invoke(statement, method, args);
+                    }
+                    long start = System.nanoTime();
+                    Object result = invoke(statement, method, args);
+                    int rows = 0;
+                    if ("executeUpdateDelete".equals(name)) {
+                        rows = (Integer) result;
+                    } else if ("executeInsert".equals(name)) {
+                        rows = (Long) result == -1 ? 0 : 1;
+                    }
+                    onExecuted(stats, System.nanoTime() - start, rows);
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    // 游标关闭时记录耗时和行数
+    private static class TimedCursor extends CursorWrapper {
+        private final QueryStats stats;
+        private final long startNanos;
+        private boolean recorded;
+
+        TimedCursor(Cursor cursor, QueryStats stats, long startNanos) {
+            super(cursor);
+            this.stats = stats;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void close() {
+            if (!recorded && !isClosed()) {
+                recorded = true;
+                onExecuted(stats, System.nanoTime() - startNanos, getCount());
+            }
+            super.close();
+        }
+    }
+}
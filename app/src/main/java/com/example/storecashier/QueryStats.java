@@ -0,0 +1,93 @@
+package com.example.storecashier;
+
+import java.util.Locale;
+
+/**
+ * 单条 SQL 的耗时统计：次数、总耗时、最长耗时、返回/影响行数，以及按固定区间计数的耗时直方图
+ */
+public class QueryStats {
+    // 直方图区间上界（毫秒），最后一格为超过 1 秒
+    private static final long[] BUCKET_BOUNDS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+
+    private final String sql;
+    private final String caller;
+
+    private final long[] histogram = new long[BUCKET_BOUNDS_MS.length + 1];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+    private long totalRows;
+
+    public QueryStats(String sql, String caller) {
+        this.sql = sql;
+        this.caller = caller;
+    }
+
+    public synchronized void record(long elapsedNanos, int rows) {
+        count++;
+        totalNanos += elapsedNanos;
+        maxNanos = Math.max(maxNanos, elapsedNanos);
+        if (rows > 0) {
+            totalRows += rows;
+        }
+        long millis = elapsedNanos / 1_000_000;
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MS.length && millis >= BUCKET_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        histogram[bucket]++;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    // 发起查询的 DAO 方法（或其他调用方），见 QueryMonitor
+    public String getCaller() {
+        return caller;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getTotalMillis() {
+        return totalNanos / 1_000_000.0;
+    }
+
+    public synchronized double getAverageMillis() {
+        return count == 0 ? 0.0 : totalNanos / 1_000_000.0 / count;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxNanos / 1_000_000.0;
+    }
+
+    public synchronized double getAverageRows() {
+        return count == 0 ? 0.0 : (double) totalRows / count;
+    }
+
+    /**
+     * 按直方图估算百分位耗时，返回所在区间的上界（落在最后一格时返回最长耗时）
+     * @param percentile 0~100
+     */
+    public synchronized double getPercentileMillis(double percentile) {
+        if (count == 0) return 0.0;
+        long target = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            seen += histogram[i];
+            if (seen >= target) {
+                return Math.min(BUCKET_BOUNDS_MS[i], maxNanos / 1_000_000.0);
+            }
+        }
+        return maxNanos / 1_000_000.0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.getDefault(),
+                "%s\n  %d 次，平均 %.2fms，p95 ≤%.0fms，最长 %.2fms，平均 %.1f 行\n  %s",
+                caller, count, getAverageMillis(), getPercentileMillis(95), getMaxMillis(), getAverageRows(), sql);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.storecashier;
+
+import androidx.room.Entity;
+
+// 按天汇总的销售额（dayStart 为本地时间零点的毫秒时间戳）
+@Entity(tableName = "sales_daily", primaryKeys = {"dayStart"})
+public class SalesDaily {
+    private long dayStart;
+    private int orderCount;
+    private int itemCount;
+    private long revenueFen;
+
+    public SalesDaily(long dayStart, int orderCount, int itemCount, long revenueFen) {
+        this.dayStart = dayStart;
+        this.orderCount = orderCount;
+        this.itemCount = itemCount;
+        this.revenueFen = revenueFen;
+    }
+
+    // Getter and Setter
+    public long getDayStart() { return dayStart; }
+    public void setDayStart(long dayStart) { this.dayStart = dayStart; }
+    public int getOrderCount() { return orderCount; }
+    public void setOrderCount(int orderCount) { this.orderCount = orderCount; }
+    public int getItemCount() { return itemCount; }
+    public void setItemCount(int itemCount) { this.itemCount = itemCount; }
+    public long getRevenueFen() { return revenueFen; }
+    public void setRevenueFen(long revenueFen) { this.revenueFen = revenueFen; }
+}
@@ -0,0 +1,93 @@
+package com.example.storecashier;
+
+import android.database.Cursor;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * 销售汇总表读写
+ * 增量更新采用 INSERT OR IGNORE + UPDATE 累加（minSdk 24 的 SQLite 不支持 UPSERT）
+ */
+@Dao
+public interface SalesDao {
+    // ---------- 结算时增量累加 ----------
+    @Query("INSERT OR IGNORE INTO sales_hourly (hourStart, orderCount, itemCount, revenueFen) VALUES (:hourStart, 0, 0, 0)")
+    void ensureHourly(long hourStart);
+
+    @Query("UPDATE sales_hourly SET orderCount = orderCount + :orders, itemCount = itemCount + :items, " +
+            "revenueFen = revenueFen + :revenueFen WHERE hourStart = :hourStart")
+    void addHourly(long hourStart, int orders, int items, long revenueFen);
+
+    @Query("INSERT OR IGNORE INTO sales_daily (dayStart, orderCount, itemCount, revenueFen) VALUES (:dayStart, 0, 0, 0)")
+    void ensureDaily(long dayStart);
+
+    @Query("UPDATE sales_daily SET orderCount = orderCount + :orders, itemCount = itemCount + :items, " +
+            "revenueFen = revenueFen + :revenueFen WHERE dayStart = :dayStart")
+    void addDaily(long dayStart, int orders, int items, long revenueFen);
+
+    @Query("INSERT OR IGNORE INTO sales_sku_daily (dayStart, barcode, productName, quantity, revenueFen) " +
+            "VALUES (:dayStart, :barcode, :productName, 0, 0)")
+    void ensureSkuDaily(long dayStart, String barcode, String productName);
+
+    @Query("UPDATE sales_sku_daily SET productName = :productName, quantity = quantity + :quantity, " +
+            "revenueFen = revenueFen + :revenueFen WHERE dayStart = :dayStart AND barcode = :barcode")
+    void addSkuDaily(long dayStart, String barcode, String productName, int quantity, long revenueFen);
+
+    @Query("INSERT OR IGNORE INTO sales_category_daily (dayStart, category, quantity, revenueFen) " +
+            "VALUES (:dayStart, :category, 0, 0)")
+    void ensureCategoryDaily(long dayStart, String category);
+
+    @Query("UPDATE sales_category_daily SET quantity = quantity + :quantity, revenueFen = revenueFen + :revenueFen " +
+            "WHERE dayStart = :dayStart AND category = :category")
+    void addCategoryDaily(long dayStart, String category, int quantity, long revenueFen);
+
+    // ---------- 报表查询（只读汇总表，与历史订单量无关） ----------
+    @Query("SELECT * FROM sales_daily WHERE dayStart = :dayStart")
+    SalesDaily getDaily(long dayStart);
+
+    @Query("SELECT * FROM sales_hourly WHERE hourStart >= :from AND hourStart < :to ORDER BY hourStart ASC")
+    List<SalesHourly> getHourly(long from, long to);
+
+    @Query("SELECT * FROM sales_category_daily WHERE dayStart = :dayStart ORDER BY revenueFen DESC")
+    List<CategorySalesDaily> getCategorySales(long dayStart);
+
+    @Query("SELECT * FROM sales_sku_daily WHERE dayStart = :dayStart ORDER BY quantity DESC LIMIT :limit")
+    List<SkuSalesDaily> getTopSkus(long dayStart, int limit);
+
+    // ---------- 重建 ----------
+    // 原始明细流式读取，按订单号排序便于统计订单数
+    @Query("SELECT o.orderId AS orderId, o.timestamp AS timestamp, i.barcode AS barcode, " +
+            "i.productName AS productName, i.price AS price, i.quantity AS quantity, p.category AS category " +
+            "FROM order_items i JOIN orders o ON o.orderId = i.orderId " +
+            "LEFT JOIN product p ON p.barcode = i.barcode ORDER BY o.orderId ASC")
+    Cursor getOrderLinesCursor();
+
+    @Query("DELETE FROM sales_hourly")
+    void clearHourly();
+
+    @Query("DELETE FROM sales_daily")
+    void clearDaily();
+
+    @Query("DELETE FROM sales_sku_daily")
+    void clearSkuDaily();
+
+    @Query("DELETE FROM sales_category_daily")
+    void clearCategoryDaily();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertHourly(List<SalesHourly> rows);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertDaily(List<SalesDaily> rows);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertSkuDaily(List<SkuSalesDaily> rows);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertCategoryDaily(List<CategorySalesDaily> rows);
+}
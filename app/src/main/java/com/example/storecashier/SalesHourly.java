@@ -0,0 +1,29 @@
+package com.example.storecashier;
+
+import androidx.room.Entity;
+
+// 按小时汇总的销售额（hourStart 为本地时间整点的毫秒时间戳）
+@Entity(tableName = "sales_hourly", primaryKeys = {"hourStart"})
+public class SalesHourly {
+    private long hourStart;
+    private int orderCount;
+    private int itemCount;
+    private long revenueFen;
+
+    public SalesHourly(long hourStart, int orderCount, int itemCount, long revenueFen) {
+        this.hourStart = hourStart;
+        this.orderCount = orderCount;
+        this.itemCount = itemCount;
+        this.revenueFen = revenueFen;
+    }
+
+    // Getter and Setter
+    public long getHourStart() { return hourStart; }
+    public void setHourStart(long hourStart) { this.hourStart = hourStart; }
+    public int getOrderCount() { return orderCount; }
+    public void setOrderCount(int orderCount) { this.orderCount = orderCount; }
+    public int getItemCount() { return itemCount; }
+    public void setItemCount(int itemCount) { this.itemCount = itemCount; }
+    public long getRevenueFen() { return revenueFen; }
+    public void setRevenueFen(long revenueFen) { this.revenueFen = revenueFen; }
+}
@@ -0,0 +1,29 @@
+package com.example.storecashier;
+
+import java.util.List;
+
+/**
+ * 单日销售报表（全部来自汇总表）
+ */
+public class SalesReport {
+    private final long dayStart;
+    private final SalesDaily daily; // 当天无销售时为 null
+    private final List<SalesHourly> hourly;
+    private final List<CategorySalesDaily> categories;
+    private final List<SkuSalesDaily> topSkus;
+
+    public SalesReport(long dayStart, SalesDaily daily, List<SalesHourly> hourly,
+                       List<CategorySalesDaily> categories, List<SkuSalesDaily> topSkus) {
+        this.dayStart = dayStart;
+        this.daily = daily;
+        this.hourly = hourly;
+        this.categories = categories;
+        this.topSkus = topSkus;
+    }
+
+    public long getDayStart() { return dayStart; }
+    public SalesDaily getDaily() { return daily; }
+    public List<SalesHourly> getHourly() { return hourly; }
+    public List<CategorySalesDaily> getCategories() { return categories; }
+    public List<SkuSalesDaily> getTopSkus() { return topSkus; }
+}
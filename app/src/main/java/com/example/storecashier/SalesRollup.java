@@ -0,0 +1,186 @@
+package com.example.storecashier;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 销售汇总维护：
+ * - recordOrder 在结算事务内增量累加（按小时、按天、按商品、按分类）
+ * - rebuild 从原始 order_items 全量重算，用于数据修复（升级时的首次回填见 AppDatabase.MIGRATION_5_6）
+ * 报表只读汇总表，耗时与历史订单量无关
+ */
+public class SalesRollup {
+    private final AppDatabase db;
+    private final SalesDao salesDao;
+
+    public SalesRollup(AppDatabase db) {
+        this.db = db;
+        this.salesDao = db.salesDao();
+    }
+
+    // 本地时间整点
+    public static long hourStart(long timestamp) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    // 本地时间零点
+    public static long dayStart(long timestamp) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    private static String categoryKey(String category) {
+        return category == null ? "" : category;
+    }
+
+    /**
+     * 累加一笔订单，必须在结算事务内调用
+     */
+    public void recordOrder(long timestamp, List<CartItem> cartItems) {
+        long hour = hourStart(timestamp);
+        long day = dayStart(timestamp);
+
+        int itemCount = 0;
+        long revenueFen = 0;
+        Map<String, SkuSalesDaily> skuTotals = new LinkedHashMap<>();
+        Map<String, CategorySalesDaily> categoryTotals = new LinkedHashMap<>();
+        for (CartItem cartItem : cartItems) {
+            Product product = cartItem.getProduct();
+            int quantity = cartItem.getQuantity();
+            long lineFen = cartItem.getItemTotalFen();
+            itemCount += quantity;
+            revenueFen += lineFen;
+
+            SkuSalesDaily sku = skuTotals.get(product.getBarcode());
+            if (sku == null) {
+                sku = new SkuSalesDaily(day, product.getBarcode(), product.getName(), 0, 0);
+                skuTotals.put(product.getBarcode(), sku);
+            }
+            sku.setQuantity(sku.getQuantity() + quantity);
+            sku.setRevenueFen(sku.getRevenueFen() + lineFen);
+
+            String category = categoryKey(product.getCategory());
+            CategorySalesDaily categorySales = categoryTotals.get(category);
+            if (categorySales == null) {
+                categorySales = new CategorySalesDaily(day, category, 0, 0);
+                categoryTotals.put(category, categorySales);
+            }
+            categorySales.setQuantity(categorySales.getQuantity() + quantity);
+            categorySales.setRevenueFen(categorySales.getRevenueFen() + lineFen);
+        }
+
+        salesDao.ensureHourly(hour);
+        salesDao.addHourly(hour, 1, itemCount, revenueFen);
+        salesDao.ensureDaily(day);
+        salesDao.addDaily(day, 1, itemCount, revenueFen);
+        for (SkuSalesDaily sku : skuTotals.values()) {
+            salesDao.ensureSkuDaily(day, sku.getBarcode(), sku.getProductName());
+            salesDao.addSkuDaily(day, sku.getBarcode(), sku.getProductName(), sku.getQuantity(), sku.getRevenueFen());
+        }
+        for (CategorySalesDaily categorySales : categoryTotals.values()) {
+            salesDao.ensureCategoryDaily(day, categorySales.getCategory());
+            salesDao.addCategoryDaily(day, categorySales.getCategory(), categorySales.getQuantity(), categorySales.getRevenueFen());
+        }
+    }
+
+    /**
+     * 从 order_items 全量重算所有汇总表，需在后台线程调用
+     * 分类取商品当前分类（明细中未保存分类快照）
+     */
+    public void rebuild() {
+        db.runInTransaction(() -> {
+            Map<Long, SalesHourly> hourly = new HashMap<>();
+            Map<Long, SalesDaily> daily = new HashMap<>();
+            Map<String, SkuSalesDaily> skus = new HashMap<>();
+            Map<String, CategorySalesDaily> categories = new HashMap<>();
+
+            try (Cursor cursor = salesDao.getOrderLinesCursor()) {
+                int orderIdIndex = cursor.getColumnIndexOrThrow("orderId");
+                int timestampIndex = cursor.getColumnIndexOrThrow("timestamp");
+                int barcodeIndex = cursor.getColumnIndexOrThrow("barcode");
+                int nameIndex = cursor.getColumnIndexOrThrow("productName");
+                int priceIndex = cursor.getColumnIndexOrThrow("price");
+                int quantityIndex = cursor.getColumnIndexOrThrow("quantity");
+                int categoryIndex = cursor.getColumnIndexOrThrow("category");
+
+                long lastOrderId = -1;
+                while (cursor.moveToNext()) {
+                    long orderId = cursor.getLong(orderIdIndex);
+                    long timestamp = cursor.getLong(timestampIndex);
+                    String barcode = cursor.isNull(barcodeIndex) ? "" : cursor.getString(barcodeIndex);
+                    String name = cursor.getString(nameIndex);
+                    int quantity = cursor.getInt(quantityIndex);
+                    long lineFen = MoneyUtil.toFen(cursor.getDouble(priceIndex)) * quantity;
+                    String category = categoryKey(cursor.isNull(categoryIndex) ? null : cursor.getString(categoryIndex));
+
+                    long hour = hourStart(timestamp);
+                    long day = dayStart(timestamp);
+                    int newOrder = orderId != lastOrderId ? 1 : 0;
+                    lastOrderId = orderId;
+
+                    SalesHourly h = hourly.get(hour);
+                    if (h == null) {
+                        h = new SalesHourly(hour, 0, 0, 0);
+                        hourly.put(hour, h);
+                    }
+                    h.setOrderCount(h.getOrderCount() + newOrder);
+                    h.setItemCount(h.getItemCount() + quantity);
+                    h.setRevenueFen(h.getRevenueFen() + lineFen);
+
+                    SalesDaily d = daily.get(day);
+                    if (d == null) {
+                        d = new SalesDaily(day, 0, 0, 0);
+                        daily.put(day, d);
+                    }
+                    d.setOrderCount(d.getOrderCount() + newOrder);
+                    d.setItemCount(d.getItemCount() + quantity);
+                    d.setRevenueFen(d.getRevenueFen() + lineFen);
+
+                    String skuKey = day + "|" + barcode;
+                    SkuSalesDaily sku = skus.get(skuKey);
+                    if (sku == null) {
+                        sku = new SkuSalesDaily(day, barcode, name, 0, 0);
+                        skus.put(skuKey, sku);
+                    }
+                    sku.setProductName(name);
+                    sku.setQuantity(sku.getQuantity() + quantity);
+                    sku.setRevenueFen(sku.getRevenueFen() + lineFen);
+
+                    String categoryMapKey = day + "|" + category;
+                    CategorySalesDaily c = categories.get(categoryMapKey);
+                    if (c == null) {
+                        c = new CategorySalesDaily(day, category, 0, 0);
+                        categories.put(categoryMapKey, c);
+                    }
+                    c.setQuantity(c.getQuantity() + quantity);
+                    c.setRevenueFen(c.getRevenueFen() + lineFen);
+                }
+            }
+
+            salesDao.clearHourly();
+            salesDao.clearDaily();
+            salesDao.clearSkuDaily();
+            salesDao.clearCategoryDaily();
+            salesDao.insertHourly(new ArrayList<>(hourly.values()));
+            salesDao.insertDaily(new ArrayList<>(daily.values()));
+            salesDao.insertSkuDaily(new ArrayList<>(skus.values()));
+            salesDao.insertCategoryDaily(new ArrayList<>(categories.values()));
+        });
+    }
+}
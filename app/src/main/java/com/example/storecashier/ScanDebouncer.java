@@ -0,0 +1,75 @@
+package com.example.storecashier;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * 按条码防抖：不同商品可以连续快速扫入，同一件商品停留在镜头前不会被重复加入
+ * - 摄像头：任意两次入账至少间隔 GLOBAL_FLOOR_MS；同一条码需离开镜头 SAME_ITEM_GAP_MS 后再扫才算下一件
+ *   （条码每被识别一次都会刷新“最后看到”的时间，所以一直对着镜头只算一件）
+ * - 扫码枪（连扫模式）：每次扣扳机都是有意的一次扫码，只过滤 HANDHELD_DUPLICATE_MS 内的重复上报
+ * 仅在主线程访问
+ */
+public class ScanDebouncer {
+    public enum Source { CAMERA, HANDHELD }
+
+    public enum Result {
+        ACCEPTED,
+        // 距上次入账太近（可能是同一帧里的另一个条码）
+        TOO_FAST,
+        // 同一件商品仍在镜头前 / 扫码枪重复上报
+        SAME_ITEM
+    }
+
+    static final long GLOBAL_FLOOR_MS = 150;
+    static final long SAME_ITEM_GAP_MS = 1000;
+    static final long HANDHELD_DUPLICATE_MS = 50;
+
+    private final Map<String, Long> lastSeenAt = new HashMap<>();
+    private long lastAcceptedAt = Long.MIN_VALUE / 2;
+
+    /**
+     * @param nowMillis 单调时钟（SystemClock.elapsedRealtime）
+     */
+    public Result onScan(String barcode, Source source, long nowMillis) {
+        Long lastSeen = lastSeenAt.get(barcode);
+
+        if (source == Source.HANDHELD) {
+            lastSeenAt.put(barcode, nowMillis);
+            if (lastSeen != null && nowMillis - lastSeen < HANDHELD_DUPLICATE_MS) {
+                return Result.SAME_ITEM;
+            }
+            return accept(nowMillis);
+        }
+
+        if (lastSeen != null && nowMillis - lastSeen < SAME_ITEM_GAP_MS) {
+            lastSeenAt.put(barcode, nowMillis);
+            return Result.SAME_ITEM;
+        }
+        // 被全局间隔挡掉时不记录，下一帧识别到时仍按新商品处理
+        if (nowMillis - lastAcceptedAt < GLOBAL_FLOOR_MS) {
+            return Result.TOO_FAST;
+        }
+        lastSeenAt.put(barcode, nowMillis);
+        return accept(nowMillis);
+    }
+
+    // 换单或清空清单后，镜头前的商品可以重新计入
+    public void reset() {
+        lastSeenAt.clear();
+        lastAcceptedAt = Long.MIN_VALUE / 2;
+    }
+
+    private Result accept(long nowMillis) {
+        lastAcceptedAt = nowMillis;
+        // 只保留仍在窗口内的条码，表的大小约等于最近一秒内看到的商品数
+        Iterator<Map.Entry<String, Long>> iterator = lastSeenAt.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (nowMillis - iterator.next().getValue() >= SAME_ITEM_GAP_MS) {
+                iterator.remove();
+            }
+        }
+        return Result.ACCEPTED;
+    }
+}
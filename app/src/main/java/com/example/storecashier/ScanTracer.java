@@ -0,0 +1,197 @@
+package com.example.storecashier;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 扫码全链路耗时追踪：每次扫码记录各阶段的时间点，最近 CAPACITY 次保存在环形缓冲区中，
+ * 按阶段统计 p50/p95/p99，并可导出 CSV 以便排查收银排队时时间花在了哪里
+ * 阶段顺序：解码完成 → 回调 → 通过防抖 → 读通道开始查询 → 查询结束 → 回到主线程 → 购物车刷新 → 提示音 → 下一帧
+ */
+public final class ScanTracer {
+    private static final int CAPACITY = 256;
+
+    public enum Stage {
+        DECODED("解码完成"),
+        CALLBACK("解码→回调"),
+        DEBOUNCED("防抖"),
+        LOOKUP_START("读通道排队"),
+        LOOKUP_END("查询商品"),
+        UI_START("切回主线程"),
+        CART_UPDATED("购物车刷新"),
+        BEEP("提示音"),
+        FRAME("等待下一帧");
+
+        // 以该阶段结束的区间名称
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    /**
+     * 单次扫码的时间点（System.nanoTime），未经过的阶段为 0
+     * 各阶段在不同线程上依次写入，线程切换本身保证了可见性
+     */
+    public static class Trace {
+        private final String barcode;
+        private final long[] marks = new long[STAGES.length];
+        private boolean found = true;
+
+        Trace(String barcode) {
+            this.barcode = barcode;
+        }
+
+        public void mark(Stage stage) {
+            marks[stage.ordinal()] = System.nanoTime();
+        }
+
+        public void setFound(boolean found) {
+            this.found = found;
+        }
+
+        // 按阶段顺序找到上一个有记录的时间点，计算本阶段区间耗时
+        long interval(Stage stage) {
+            long end = marks[stage.ordinal()];
+            if (end == 0) return -1;
+            for (int i = stage.ordinal() - 1; i >= 0; i--) {
+                if (marks[i] != 0) return end - marks[i];
+            }
+            return -1;
+        }
+
+        long total() {
+            long first = 0;
+            long last = 0;
+            for (long mark : marks) {
+                if (mark == 0) continue;
+                if (first == 0) first = mark;
+                last = mark;
+            }
+            return first == 0 ? -1 : last - first;
+        }
+    }
+
+    private static final Trace[] ring = new Trace[CAPACITY];
+    private static int next = 0;
+    private static long finishedCount = 0;
+    private static final AtomicLong debouncedCount = new AtomicLong();
+
+    private ScanTracer() {}
+
+    /**
+     * 扫码回调入口调用
+     * @param decodedAtMillis ZXing 解码出结果的时间（System.currentTimeMillis），用于推算解码→回调的耗时
+     */
+    public static Trace begin(String barcode, long decodedAtMillis) {
+        Trace trace = new Trace(barcode);
+        trace.mark(Stage.CALLBACK);
+        long callbackDelayMillis = System.currentTimeMillis() - decodedAtMillis;
+        if (decodedAtMillis > 0 && callbackDelayMillis >= 0) {
+            trace.marks[Stage.DECODED.ordinal()] = trace.marks[Stage.CALLBACK.ordinal()] - callbackDelayMillis * 1_000_000;
+        }
+        return trace;
+    }
+
+    // 被防抖丢弃的扫码只计数
+    public static void recordDebounced() {
+        debouncedCount.incrementAndGet();
+    }
+
+    public static synchronized void finish(Trace trace) {
+        ring[next] = trace;
+        next = (next + 1) % CAPACITY;
+        finishedCount++;
+    }
+
+    private static synchronized Trace[] snapshot() {
+        int size = (int) Math.min(finishedCount, CAPACITY);
+        Trace[] traces = new Trace[size];
+        // 从最旧的一条开始
+        int start = finishedCount > CAPACITY ? next : 0;
+        for (int i = 0; i < size; i++) {
+            traces[i] = ring[(start + i) % CAPACITY];
+        }
+        return traces;
+    }
+
+    public static synchronized void reset() {
+        Arrays.fill(ring, null);
+        next = 0;
+        finishedCount = 0;
+        debouncedCount.set(0);
+    }
+
+    public static String getSummary() {
+        Trace[] traces = snapshot();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.getDefault(), "最近 %d 次扫码，防抖丢弃 %d 次（单位 ms）",
+                traces.length, debouncedCount.get()));
+        if (traces.length == 0) return sb.toString();
+
+        sb.append(String.format(Locale.getDefault(), "\n%-10s %8s %8s %8s", "阶段", "p50", "p95", "p99"));
+        long[] values = new long[traces.length];
+        for (int s = 1; s < STAGES.length; s++) {
+            int count = 0;
+            for (Trace trace : traces) {
+                long interval = trace.interval(STAGES[s]);
+                if (interval >= 0) values[count++] = interval;
+            }
+            appendPercentiles(sb, STAGES[s].getLabel(), values, count);
+        }
+        int count = 0;
+        for (Trace trace : traces) {
+            long total = trace.total();
+            if (total >= 0) values[count++] = total;
+        }
+        appendPercentiles(sb, "总计", values, count);
+        return sb.toString();
+    }
+
+    private static void appendPercentiles(StringBuilder sb, String label, long[] values, int count) {
+        if (count == 0) return;
+        Arrays.sort(values, 0, count);
+        sb.append(String.format(Locale.getDefault(), "\n%-10s %8.2f %8.2f %8.2f", label,
+                percentile(values, count, 50), percentile(values, count, 95), percentile(values, count, 99)));
+    }
+
+    // 最近秩法，返回毫秒
+    private static double percentile(long[] sorted, int count, int percentile) {
+        int rank = (int) Math.ceil(count * percentile / 100.0);
+        return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+
+    /**
+     * 导出环形缓冲区中的全部记录，每行一次扫码，各阶段区间耗时单位为微秒，缺失为空
+     * @return 导出的记录数
+     */
+    public static int exportCsv(Writer out) throws IOException {
+        Trace[] traces = snapshot();
+        out.write("barcode,found");
+        for (int s = 1; s < STAGES.length; s++) {
+            out.write("," + STAGES[s].name().toLowerCase(Locale.ROOT) + "_us");
+        }
+        out.write(",total_us\n");
+        for (Trace trace : traces) {
+            out.write(trace.barcode + "," + trace.found);
+            for (int s = 1; s < STAGES.length; s++) {
+                long interval = trace.interval(STAGES[s]);
+                out.write(interval >= 0 ? "," + interval / 1000 : ",");
+            }
+            long total = trace.total();
+            out.write((total >= 0 ? "," + total / 1000 : ",") + "\n");
+        }
+        out.flush();
+        return traces.length;
+    }
+}
@@ -21,6 +21,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 
 import java.lang.ref.WeakReference;
 import java.text.SimpleDateFormat;
@@ -31,6 +32,8 @@ import static android.app.Activity.RESULT_OK;
 
 public class SettingsFragment extends Fragment {
     private WebDAVManager webDAVManager; // WebDAV管理器实例
+    private TextView tvSettingsInfo;
+    private ProductViewModel productViewModel;
     private static final int REQUEST_CODE_PICK_JSON_FILE = 101;
 
     // 静态内部类用于WebDAV备份
@@ -58,7 +61,9 @@ public class SettingsFragment extends Fragment {
             Context context = contextRef.get();
             if (context != null) {
                 if (success) {
-                    Toast.makeText(context, "WebDAV云备份成功", Toast.LENGTH_SHORT).show();
+                    WebDAVTransfer.Summary summary = webDAVManager.getLastTransferSummary();
+                    String message = summary == null ? "WebDAV云备份成功" : "WebDAV云备份成功\n上传：" + summary;
+                    Toast.makeText(context, message, Toast.LENGTH_LONG).show();
                 } else {
                     Toast.makeText(context, "WebDAV云备份失败，请检查日志", Toast.LENGTH_SHORT).show();
                 }
@@ -108,10 +113,12 @@ public class SettingsFragment extends Fragment {
     private static class WebDAVRestoreTask extends AsyncTask<String, Void, Boolean> {
         private WeakReference<Context> contextRef;
         private WebDAVManager webDAVManager;
+        private ProductViewModel productViewModel;
 
-        public WebDAVRestoreTask(Context context, WebDAVManager webDAVManager) {
+        public WebDAVRestoreTask(Context context, WebDAVManager webDAVManager, ProductViewModel productViewModel) {
             this.contextRef = new WeakReference<>(context);
             this.webDAVManager = webDAVManager;
+            this.productViewModel = productViewModel;
         }
 
         @Override
@@ -127,12 +134,16 @@ public class SettingsFragment extends Fragment {
 
         @Override
         protected void onPostExecute(Boolean success) {
+            // 恢复直接写库（失败时也可能已写入部分数据），需刷新条码缓存
+            productViewModel.invalidateProductCache();
             Context context = contextRef.get();
             if (context != null) {
+                WebDAVTransfer.Summary summary = webDAVManager.getLastTransferSummary();
+                String detail = summary == null ? "" : "\n图片：" + summary;
                 if (success) {
-                    Toast.makeText(context, "数据和图片恢复成功！", Toast.LENGTH_SHORT).show();
+                    Toast.makeText(context, "数据和图片恢复成功！" + detail, Toast.LENGTH_LONG).show();
                 } else {
-                    Toast.makeText(context, "数据恢复失败，请查看日志", Toast.LENGTH_SHORT).show();
+                    Toast.makeText(context, "数据恢复未完成，请重试（将从中断处继续）" + detail, Toast.LENGTH_LONG).show();
                 }
             }
         }
@@ -192,7 +203,7 @@ public class SettingsFragment extends Fragment {
         View view = inflater.inflate(R.layout.fragment_settings, container, false);
 
         TextView tvSettingsTitle = view.findViewById(R.id.tv_settings_title);
-        TextView tvSettingsInfo = view.findViewById(R.id.tv_settings_info);
+        tvSettingsInfo = view.findViewById(R.id.tv_settings_info);
 
         Button btnWebDAVConfig = view.findViewById(R.id.btn_webdav_config);
         Button btnWebDAVBackup = view.findViewById(R.id.btn_webdav_backup);
@@ -204,6 +215,7 @@ public class SettingsFragment extends Fragment {
         tvSettingsInfo.setText("便利店收银系统设置界面");
 
         webDAVManager = new WebDAVManager(requireContext()); // 初始化WebDAV管理器
+        productViewModel = new ViewModelProvider(requireActivity()).get(ProductViewModel.class);
 
         // WebDAV配置按钮点击事件
         btnWebDAVConfig.setOnClickListener(v -> {
@@ -235,7 +247,7 @@ public class SettingsFragment extends Fragment {
                     return;
                 }
 
-                new WebDAVTestTask(requireContext(), webDAVManager, url, username, password, btnTestConnection).execute();
+                new WebDAVTestTask(requireContext(), webDAVManager, url, username, password, btnTestConnection).executeOnExecutor(AppExecutors.bulkExecutor);
             });
 
             builder.setPositiveButton("保存", (dialog, which) -> {
@@ -267,7 +279,7 @@ public class SettingsFragment extends Fragment {
                 Toast.makeText(requireContext(), "请先配置WebDAV服务器地址", Toast.LENGTH_SHORT).show();
                 return;
             }
-            new WebDAVBackupTask(requireContext(), webDAVManager).execute();
+            new WebDAVBackupTask(requireContext(), webDAVManager).executeOnExecutor(AppExecutors.bulkExecutor);
         });
 
         // ================== 修改：WebDAV恢复按钮点击事件 ==================
@@ -289,7 +301,7 @@ public class SettingsFragment extends Fragment {
                 public void onError(String errorMsg) {
                     Toast.makeText(requireContext(), errorMsg, Toast.LENGTH_SHORT).show();
                 }
-            }).execute();
+            }).executeOnExecutor(AppExecutors.bulkExecutor);
         });
 
         // 数据导出按钮点击事件
@@ -321,6 +333,19 @@ public class SettingsFragment extends Fragment {
                     .commit();
         });
 
+        // 今日销售统计按钮点击事件
+        Button btnSalesReport = view.findViewById(R.id.btn_sales_report);
+        btnSalesReport.setOnClickListener(v -> showSalesReport());
+
+        // 性能诊断按钮点击事件
+        Button btnDiagnostics = view.findViewById(R.id.btn_diagnostics);
+        btnDiagnostics.setOnClickListener(v -> {
+            getParentFragmentManager().beginTransaction()
+                    .replace(R.id.fragment_container, new DiagnosticsFragment())
+                    .addToBackStack(null)
+                    .commit();
+        });
+
         // 关于按钮点击事件
         Button btnAbout = view.findViewById(R.id.btn_about);
         btnAbout.setOnClickListener(v -> {
@@ -331,6 +356,49 @@ public class SettingsFragment extends Fragment {
         return view;
     }
 
+    private void showSalesReport() {
+        productViewModel.loadSalesReport(System.currentTimeMillis(), report ->
+                requireActivity().runOnUiThread(() -> showSalesReportDialog(report)));
+    }
+
+    private void showSalesReportDialog(SalesReport report) {
+        StringBuilder sb = new StringBuilder();
+        SalesDaily daily = report.getDaily();
+        if (daily == null) {
+            sb.append("今日暂无销售记录");
+        } else {
+            sb.append("订单数：").append(daily.getOrderCount())
+              .append("\n销售件数：").append(daily.getItemCount())
+              .append("\n销售额：").append(MoneyUtil.format(daily.getRevenueFen())).append("元");
+
+            sb.append("\n\n按分类：");
+            for (CategorySalesDaily category : report.getCategories()) {
+                String name = category.getCategory().isEmpty() ? "未分类" : category.getCategory();
+                sb.append("\n").append(name)
+                  .append("  ").append(category.getQuantity()).append("件")
+                  .append("  ").append(MoneyUtil.format(category.getRevenueFen())).append("元");
+            }
+
+            sb.append("\n\n热销商品：");
+            for (SkuSalesDaily sku : report.getTopSkus()) {
+                sb.append("\n").append(sku.getProductName())
+                  .append(" x ").append(sku.getQuantity())
+                  .append("  ").append(MoneyUtil.format(sku.getRevenueFen())).append("元");
+            }
+        }
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("今日销售统计")
+                .setMessage(sb.toString())
+                .setPositiveButton("确定", null)
+                .setNeutralButton("重建统计", (dialog, which) -> {
+                    Toast.makeText(requireContext(), "正在根据历史订单重建统计...", Toast.LENGTH_SHORT).show();
+                    productViewModel.rebuildSalesRollups(() -> requireActivity().runOnUiThread(() ->
+                            Toast.makeText(requireContext(), "销售统计重建完成", Toast.LENGTH_SHORT).show()));
+                })
+                .show();
+    }
+
     private void showBackupSelectionDialog(List<String> folderNames) {
         if (folderNames == null || folderNames.isEmpty()) return;
 
@@ -346,7 +414,7 @@ public class SettingsFragment extends Fragment {
                     .setTitle("确认恢复")
                     .setMessage("即将恢复备份：" + selectedFolder + "\n商品数据和图片将一并恢复，当前本地数据将被覆盖，是否继续？")
                     .setPositiveButton("确定", (confirmDialog, confirmWhich) -> {
-                        new WebDAVRestoreTask(requireContext(), webDAVManager).execute(selectedFolder);
+                        new WebDAVRestoreTask(requireContext(), webDAVManager, productViewModel).executeOnExecutor(AppExecutors.bulkExecutor, selectedFolder);
                     })
                     .setNegativeButton("取消", null)
                     .show();
@@ -357,10 +425,9 @@ public class SettingsFragment extends Fragment {
     }
 
     private void exportProducts() {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+        AppExecutors.bulkExecutor.execute(() -> {
             try {
                 ProductDao dao = AppDatabase.getDatabase(requireContext()).productDao();
-                List<Product> allProducts = dao.getAllProductsSync();
 
                 SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss", Locale.getDefault());
                 String folderName = "Backup_" + sdf.format(new java.util.Date());
@@ -369,21 +436,16 @@ public class SettingsFragment extends Fragment {
                 java.io.File backupDir = new java.io.File(downloadDir, "Cashier/" + folderName);
                 if (!backupDir.exists()) backupDir.mkdirs();
 
-                // 导出 JSON
+                // 流式导出 JSON
                 java.io.File exportFile = new java.io.File(backupDir, "products.json");
-                com.google.gson.Gson gson = new com.google.gson.Gson();
-                try (java.io.OutputStreamWriter writer = new java.io.OutputStreamWriter(new java.io.FileOutputStream(exportFile), "UTF-8")) {
-                    gson.toJson(allProducts, writer);
-                    writer.flush();
+                try (java.io.Writer writer = new java.io.BufferedWriter(new java.io.OutputStreamWriter(new java.io.FileOutputStream(exportFile), "UTF-8"))) {
+                    new ProductJsonCodec(dao).exportAll(writer, rows -> showProgress("正在导出：" + rows + " 条"));
                 }
 
                 // 复制商品图片到 images 子目录
                 java.io.File imagesDir = new java.io.File(backupDir, "images");
                 boolean hasImages = false;
-                for (Product product : allProducts) {
-                    String imagePath = product.getImagePath();
-                    if (imagePath == null || imagePath.isEmpty()) continue;
-
+                for (String imagePath : dao.getAllImagePaths()) {
                     java.io.File srcFile = new java.io.File(imagePath);
                     if (!srcFile.exists()) continue;
 
@@ -407,18 +469,30 @@ public class SettingsFragment extends Fragment {
                         ? "导出成功！含图片，保存在 Download/Cashier/" + folderName
                         : "导出成功！保存在 Download/Cashier/" + folderName;
                 String finalMsg = msg;
-                requireActivity().runOnUiThread(() ->
-                    Toast.makeText(requireContext(), finalMsg, Toast.LENGTH_SHORT).show()
-                );
+                requireActivity().runOnUiThread(() -> {
+                    hideProgress();
+                    Toast.makeText(requireContext(), finalMsg, Toast.LENGTH_SHORT).show();
+                });
             } catch (Exception e) {
                 e.printStackTrace();
-                requireActivity().runOnUiThread(() ->
-                    Toast.makeText(requireContext(), "数据导出失败", Toast.LENGTH_SHORT).show()
-                );
+                requireActivity().runOnUiThread(() -> {
+                    hideProgress();
+                    Toast.makeText(requireContext(), "数据导出失败", Toast.LENGTH_SHORT).show();
+                });
             }
         });
     }
 
+    // 在设置页副标题显示导入导出进度（可在后台线程调用）
+    private void showProgress(String text) {
+        if (getActivity() == null) return;
+        getActivity().runOnUiThread(() -> tvSettingsInfo.setText(text));
+    }
+
+    private void hideProgress() {
+        tvSettingsInfo.setText("便利店收银系统设置界面");
+    }
+
     private void openJsonFilePicker() {
         Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
         intent.setType("application/json");
@@ -450,25 +524,26 @@ public class SettingsFragment extends Fragment {
         if (requestCode == REQUEST_CODE_PICK_JSON_FILE && resultCode == RESULT_OK) {
             if (data != null && data.getData() != null) {
                 Uri jsonFileUri = data.getData();
-                AppDatabase.databaseWriteExecutor.execute(() -> {
+                AppExecutors.bulkExecutor.execute(() -> {
                     try (java.io.InputStream inputStream = requireContext().getContentResolver().openInputStream(jsonFileUri);
-                         java.io.InputStreamReader reader = new java.io.InputStreamReader(inputStream, "UTF-8")) {
-                        
-                        com.google.gson.Gson gson = new com.google.gson.Gson();
-                        java.lang.reflect.Type listType = new com.google.gson.reflect.TypeToken<List<Product>>(){}.getType();
-                        List<Product> products = gson.fromJson(reader, listType);
-                        
+                         java.io.Reader reader = new java.io.BufferedReader(new java.io.InputStreamReader(inputStream, "UTF-8"))) {
+
+                        // 流式解析，分批入库
                         ProductDao dao = AppDatabase.getDatabase(requireContext()).productDao();
-                        dao.insertAll(products);
-                        
-                        requireActivity().runOnUiThread(() -> 
-                            Toast.makeText(requireContext(), "数据导入成功", Toast.LENGTH_SHORT).show()
-                        );
+                        int rows = new ProductJsonCodec(dao).importAll(reader, null,
+                                count -> showProgress("正在导入：" + count + " 条"));
+                        productViewModel.invalidateProductCache();
+
+                        requireActivity().runOnUiThread(() -> {
+                            hideProgress();
+                            Toast.makeText(requireContext(), "数据导入成功，共 " + rows + " 条", Toast.LENGTH_SHORT).show();
+                        });
                     } catch (Exception e) {
                         e.printStackTrace();
-                        requireActivity().runOnUiThread(() -> 
-                            Toast.makeText(requireContext(), "数据导入失败: " + e.getMessage(), Toast.LENGTH_SHORT).show()
-                        );
+                        requireActivity().runOnUiThread(() -> {
+                            hideProgress();
+                            Toast.makeText(requireContext(), "数据导入失败: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                        });
                     }
                 });
             }
@@ -6,10 +6,16 @@ import android.content.pm.PackageManager;
 import android.media.AudioManager;
 import android.media.ToneGenerator;
 import android.os.Bundle;
+import android.os.Parcelable;
+import android.os.SystemClock;
 import android.os.Vibrator;
+import android.view.Choreographer;
+import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.inputmethod.EditorInfo;
+import android.widget.AutoCompleteTextView;
 import android.widget.BaseAdapter;
 import android.widget.Button;
 import android.widget.ListView;
@@ -31,17 +37,22 @@ import com.journeyapps.barcodescanner.DecoratedBarcodeView;
 import com.journeyapps.barcodescanner.DefaultDecoderFactory;
 import com.journeyapps.barcodescanner.camera.CameraSettings;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import androidx.lifecycle.ViewModelProvider;
 
 import androidx.recyclerview.widget.RecyclerView;
 
-public class SettlementFragment extends Fragment implements CartItemAdapter.OnCartItemChangeListener {
+public class SettlementFragment extends Fragment {
     private static final int CAMERA_PERMISSION_REQUEST_CODE = 200;
+    private static final String STATE_BASKET_IDS = "basketIds";
+    private static final String STATE_BASKET_SNAPSHOTS = "basketSnapshots";
+    private static final String STATE_ACTIVE_BASKET = "activeBasket";
+    // 扫码枪输入：至少 6 位的纯数字
+    private static final Pattern HANDHELD_BARCODE = Pattern.compile("\\d{6,}");
 
     // UI控件
     private RelativeLayout layoutScanContainer;
@@ -52,38 +63,109 @@ public class SettlementFragment extends Fragment implements CartItemAdapter.OnCa
     private Button btnScanSettlement, btnClearSettlement, btnConfirmSettlement;
     private RecyclerView rvSettlementList;
     private TextView tvTotalPrice;
+    private AutoCompleteTextView actvSearch;
+    private TextView tvBasketTitle;
+    private Button btnParkBasket, btnResumeBasket;
+    private TextView tvCheckoutStatus;
+    private CheckoutOutbox.Status checkoutStatus;
+    private List<StockShortage> stockShortages;
     private ProductViewModel productViewModel;
 
-    // 逻辑变量
-    private List<CartItem> settlementList = new ArrayList<>();
+    // 逻辑变量：当前收银的一单和挂起的单子
+    private BasketManager basketManager;
     private CartItemAdapter settlementAdapter;
-    private double totalPrice = 0.0;
+    // 购物车任意修改后刷新合计
+    private final CartModel.Observer totalPriceObserver = new CartModel.Observer() {
+        @Override
+        public void onCartChanged() {
+            updateTotalPrice();
+        }
+    };
 
     private ToneGenerator toneGenerator;
-    private long lastScanTime = 0; // 用于防抖动
+    private final ScanDebouncer scanDebouncer = new ScanDebouncer();
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        productViewModel = new ViewModelProvider(requireActivity()).get(ProductViewModel.class);
+        basketManager = new BasketManager(requireContext().getFilesDir(), productViewModel.getStockLedger());
+        basketManager.setListener(this::onActiveBasketChanged);
+
+        int[] basketIds = savedInstanceState == null ? null : savedInstanceState.getIntArray(STATE_BASKET_IDS);
+        if (basketIds != null) {
+            // 配置变更：快照与日志一致，按 id 查回商品即可（有商品已被删除时按恢复结果重写日志）
+            Parcelable[] snapshots = savedInstanceState.getParcelableArray(STATE_BASKET_SNAPSHOTS);
+            List<Basket> baskets = basketManager.restore(basketIds, savedInstanceState.getInt(STATE_ACTIVE_BASKET));
+            for (int i = 0; i < baskets.size(); i++) {
+                Basket basket = baskets.get(i);
+                CartSnapshot snapshot = (CartSnapshot) snapshots[i];
+                productViewModel.rehydrateCart(snapshot, items -> requireActivity().runOnUiThread(() ->
+                        onBasketRecovered(basket, items, items.size() == snapshot.size())));
+            }
+        } else {
+            // 冷启动：逐单重放日志，恢复进程被杀前未结算的单子
+            for (Basket basket : basketManager.loadFromJournals()) {
+                productViewModel.recoverCart(basket.getJournal(), items -> requireActivity().runOnUiThread(() -> {
+                    onBasketRecovered(basket, items, true);
+                    if (!items.isEmpty() && basket == basketManager.getActive() && tvScanStatus != null) {
+                        tvScanStatus.setText("已恢复未结算的清单：" + cart().getItemCount() + " 件");
+                    }
+                }));
+            }
+        }
+    }
+
+    private void onBasketRecovered(Basket basket, List<CartItem> items, boolean journalInSync) {
+        basketManager.onRecovered(basket, items, journalInSync);
+        updateBasketViews();
+    }
+
+    // 当前收银的购物车
+    private CartModel cart() {
+        return basketManager.getActive().getCart();
+    }
+
+    private void onActiveBasketChanged(Basket previous, Basket active) {
+        scanDebouncer.reset();
+        if (settlementAdapter == null) return;
+        previous.getCart().removeObserver(totalPriceObserver);
+        settlementAdapter.setCart(active.getCart());
+        active.getCart().addObserver(totalPriceObserver);
+        updateTotalPrice();
+        updateBasketViews();
+    }
+
+    private void updateBasketViews() {
+        if (tvBasketTitle == null) return;
+        tvBasketTitle.setText("购物车清单（" + basketManager.getActive().getLabel() + "）");
+        int parked = basketManager.getParked().size();
+        btnResumeBasket.setText(parked == 0 ? "取单" : "取单（" + parked + "）");
+    }
 
     @Nullable
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_settlement, container, false);
 
-        productViewModel = new ViewModelProvider(requireActivity()).get(ProductViewModel.class);
         initViews(view);
 
         initBeepSound();
 
-        // 恢复状态
-        if (savedInstanceState != null) {
-            ArrayList<CartItem> savedList = savedInstanceState.getParcelableArrayList("settlementList");
-            if (savedList != null) {
-                settlementList = savedList;
-            }
-            totalPrice = savedInstanceState.getDouble("totalPrice", 0.0);
-        }
-
-        settlementAdapter = new CartItemAdapter(settlementList, this);
+        settlementAdapter = new CartItemAdapter(cart());
+        cart().addObserver(totalPriceObserver);
         rvSettlementList.setAdapter(settlementAdapter);
         updateTotalPrice();
+        updateBasketViews();
+
+        productViewModel.getCheckoutStatus().observe(getViewLifecycleOwner(), status -> {
+            checkoutStatus = status;
+            updateCheckoutStatus();
+        });
+        productViewModel.getStockShortages().observe(getViewLifecycleOwner(), shortages -> {
+            stockShortages = shortages;
+            updateCheckoutStatus();
+        });
 
         return view;
     }
@@ -101,6 +183,48 @@ public class SettlementFragment extends Fragment implements CartItemAdapter.OnCa
         rvSettlementList = view.findViewById(R.id.rv_settlement_list);
         tvTotalPrice = view.findViewById(R.id.tv_total_price);
         tvScanStatus = view.findViewById(R.id.tv_scan_status);
+        actvSearch = view.findViewById(R.id.actv_settlement_search);
+        tvBasketTitle = view.findViewById(R.id.tv_basket_title);
+        btnParkBasket = view.findViewById(R.id.btn_park_basket);
+        btnResumeBasket = view.findViewById(R.id.btn_resume_basket);
+
+        // 挂单：当前单挂起，开一张新单
+        btnParkBasket.setOnClickListener(v -> {
+            Basket current = basketManager.getActive();
+            if (basketManager.park()) {
+                tvScanStatus.setText("已挂单：" + current.getLabel());
+            } else {
+                Toast.makeText(requireContext(), "当前清单为空", Toast.LENGTH_SHORT).show();
+            }
+        });
+        btnResumeBasket.setOnClickListener(v -> showParkedBaskets());
+        tvCheckoutStatus = view.findViewById(R.id.tv_checkout_status);
+        tvCheckoutStatus.setOnClickListener(v -> {
+            if (checkoutStatus != null && !checkoutStatus.getFailed().isEmpty()) {
+                showFailedCheckouts();
+            } else {
+                showStockShortages();
+            }
+        });
+
+        // 搜索加购：选中候选商品后加入清单并清空输入框
+        actvSearch.setAdapter(new ProductSearchAdapter(productViewModel));
+        actvSearch.setOnItemClickListener((parent, itemView, position, id) -> {
+            Product product = (Product) parent.getItemAtPosition(position);
+            actvSearch.setText("");
+            addToCart(product);
+        });
+        // 扫码枪（键盘模式）会把条码输入到获得焦点的搜索框并回车，纯数字条码按扫码处理（连扫模式）
+        actvSearch.setOnEditorActionListener((v, actionId, event) -> {
+            boolean isEnter = actionId != EditorInfo.IME_NULL
+                    || (event != null && event.getKeyCode() == KeyEvent.KEYCODE_ENTER && event.getAction() == KeyEvent.ACTION_DOWN);
+            String text = actvSearch.getText().toString().trim();
+            if (!isEnter || !HANDHELD_BARCODE.matcher(text).matches()) return false;
+            actvSearch.setText("");
+            actvSearch.dismissDropDown();
+            onBarcodeScanned(text, ScanDebouncer.Source.HANDHELD, 0);
+            return true;
+        });
 
         // 配置扫码视图
         Collection<BarcodeFormat> formats = Arrays.asList(BarcodeFormat.UPC_A, BarcodeFormat.EAN_13, BarcodeFormat.CODE_128);
@@ -118,28 +242,20 @@ public class SettlementFragment extends Fragment implements CartItemAdapter.OnCa
 
         // 点击列表清空
         btnClearSettlement.setOnClickListener(v -> {
-            if (settlementList.isEmpty()) return;
+            if (cart().isEmpty()) return;
             new AlertDialog.Builder(requireContext())
                     .setTitle("确认清空")
                     .setMessage("是否清空当前结算清单？")
                     .setPositiveButton("确认", (dialog, which) -> {
-                        settlementList.clear();
-                        totalPrice = 0.0;
-                        settlementAdapter.notifyDataSetChanged();
-                        updateTotalPrice();
+                        cart().clear();
+                        scanDebouncer.reset();
                         tvScanStatus.setText("清单已清空");
                     })
                     .setNegativeButton("取消", null)
                     .show();
         });
 
-        btnConfirmSettlement.setOnClickListener(v -> confirmSettlement());
-    }
-
-    @Override
-    public void onCartUpdated() {
-        calculateTotalPrice();
-        updateTotalPrice();
+        btnConfirmSettlement.setOnClickListener(v -> confirmSettlement(basketManager.getActive()));
     }
 
     private void initBeepSound() {
@@ -199,58 +315,89 @@ public class SettlementFragment extends Fragment implements CartItemAdapter.OnCa
         public void barcodeResult(BarcodeResult result) {
             if (result.getText() == null) return;
 
-            // 防抖动：1.5秒内不重复识别
-            long currentTime = System.currentTimeMillis();
-            if (currentTime - lastScanTime < 1500) {
-                return;
-            }
-            lastScanTime = currentTime;
-
-            String barcode = result.getText();
-            queryProductAndAddToSettlement(barcode);
+            onBarcodeScanned(result.getText(), ScanDebouncer.Source.CAMERA, result.getResult().getTimestamp());
         }
 
         @Override
         public void possibleResultPoints(List<ResultPoint> resultPoints) { }
     };
 
-    private void queryProductAndAddToSettlement(String barcode) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+    /**
+     * 摄像头和扫码枪的统一入口：按条码防抖后查询并加购
+     * @param decodedAtMillis 摄像头解码时间，扫码枪为 0
+     */
+    private void onBarcodeScanned(String barcode, ScanDebouncer.Source source, long decodedAtMillis) {
+        ScanDebouncer.Result result = scanDebouncer.onScan(barcode, source, SystemClock.elapsedRealtime());
+        if (result != ScanDebouncer.Result.ACCEPTED) {
+            ScanTracer.recordDebounced();
+            return;
+        }
+        ScanTracer.Trace trace = ScanTracer.begin(barcode, decodedAtMillis);
+        trace.mark(ScanTracer.Stage.DEBOUNCED);
+        queryProductAndAddToSettlement(barcode, trace);
+    }
+
+    private void queryProductAndAddToSettlement(String barcode, ScanTracer.Trace trace) {
+        AppExecutors.readExecutor.execute(() -> {
+            trace.mark(ScanTracer.Stage.LOOKUP_START);
             Product product = productViewModel.getProductByBarcodeSync(barcode);
+            trace.mark(ScanTracer.Stage.LOOKUP_END);
             requireActivity().runOnUiThread(() -> {
+                trace.mark(ScanTracer.Stage.UI_START);
                 if (product == null) {
+                    trace.setFound(false);
+                    ScanTracer.finish(trace);
                     Toast.makeText(requireContext(), "未找到商品：" + barcode, Toast.LENGTH_SHORT).show();
                     return;
                 }
+                addToCart(product, trace);
+            });
+        });
+    }
 
-                boolean productFound = false;
-                for (int i = 0; i < settlementList.size(); i++) {
-                    CartItem cartItem = settlementList.get(i);
-                    if (cartItem.getProduct().getBarcode().equals(barcode)) {
-                        cartItem.incrementQuantity();
-                        settlementAdapter.notifyItemChanged(i);
-                        productFound = true;
-                        break;
-                    }
-                }
-
-                if (!productFound) {
-                    // 新商品添加到列表最前面，方便用户看到
-                    settlementList.add(0, new CartItem(product));
-                    settlementAdapter.notifyItemInserted(0);
-                }
+    private void addToCart(Product product) {
+        addToCart(product, null);
+    }
 
-                calculateTotalPrice();
-                updateTotalPrice();
+    // trace 为扫码加购的耗时记录，搜索加购时为 null
+    private void addToCart(Product product, @Nullable ScanTracer.Trace trace) {
+        // 已有商品数量 +1，新商品添加到列表最前面，方便用户看到
+        cart().add(product);
+
+        // 更新状态提示：用缓存库存减去所有单子已占用的件数，不查库
+        showAddedStatus(product);
+
+        // 自动滚动到列表顶部，让用户看到最新添加的商品
+        rvSettlementList.smoothScrollToPosition(0);
+        if (trace != null) trace.mark(ScanTracer.Stage.CART_UPDATED);
+        playBeepAndVibrate();
+
+        if (trace != null) {
+            trace.mark(ScanTracer.Stage.BEEP);
+            // 下一帧开始绘制时，新加的商品行才会上屏
+            Choreographer.getInstance().postFrameCallback(frameTimeNanos -> {
+                trace.mark(ScanTracer.Stage.FRAME);
+                ScanTracer.finish(trace);
+            });
+        }
+    }
 
-                // 更新状态提示
+    private void showAddedStatus(Product product) {
+        StockLedger ledger = productViewModel.getStockLedger();
+        switch (ledger.getLevel(product)) {
+            case OVERSOLD:
+                int otherBaskets = ledger.getReserved(product.getBarcode()) - cart().find(product.getBarcode()).getQuantity();
+                String message = "库存不足：" + product.getName() + " 库存 " + product.getStock() + " 件"
+                        + (otherBaskets > 0 ? "，其他单已占用 " + otherBaskets + " 件" : "");
+                tvScanStatus.setText(message);
+                Toast.makeText(requireContext(), message, Toast.LENGTH_SHORT).show();
+                break;
+            case LOW:
+                tvScanStatus.setText("已添加：" + product.getName() + "（仅剩 " + ledger.getAvailable(product) + " 件）");
+                break;
+            default:
                 tvScanStatus.setText("已添加：" + product.getName());
-
-                // 自动滚动到列表顶部，让用户看到最新添加的商品
-                rvSettlementList.smoothScrollToPosition(0);
-                playBeepAndVibrate();
-            });
-        });
+        }
     }
 
     @Override
@@ -267,51 +414,158 @@ public class SettlementFragment extends Fragment implements CartItemAdapter.OnCa
         barcodeView.pause();
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        cart().removeObserver(settlementAdapter);
+        cart().removeObserver(totalPriceObserver);
+        settlementAdapter = null;
+        tvBasketTitle = null;
+    }
+
     @Override
     public void onDestroy() {
         super.onDestroy();
+        basketManager.close();
         if (toneGenerator != null) {
             toneGenerator.release();
             toneGenerator = null;
         }
     }
 
-    private void calculateTotalPrice() {
-        totalPrice = 0.0;
-        for (CartItem cartItem : settlementList) {
-            totalPrice += cartItem.getItemTotal();
-        }
-    }
-
     private void updateTotalPrice() {
-        tvTotalPrice.setText(String.format("%.2f元", totalPrice));
+        tvTotalPrice.setText(MoneyUtil.format(cart().getTotalFen()) + "元");
     }
 
-    private void confirmSettlement() {
-        if (settlementList.isEmpty()) {
+    /**
+     * 结算任意一单（当前单或挂单）：确认后该单立即脱离收银台，收银员可以继续扫下一单
+     */
+    private void confirmSettlement(Basket basket) {
+        CartModel cart = basket.getCart();
+        if (cart.isEmpty()) {
             Toast.makeText(requireContext(), "结算清单为空", Toast.LENGTH_SHORT).show();
             return;
         }
         new AlertDialog.Builder(requireContext())
-                .setTitle("确认结算")
-                .setMessage("合计金额：" + String.format("%.2f元", totalPrice) + "，是否确认结算？")
+                .setTitle("确认结算（" + basket.getLabel() + "）")
+                .setMessage("共 " + cart.getLineCount() + " 种 " + cart.getItemCount() + " 件，合计金额："
+                        + MoneyUtil.format(cart.getTotalFen()) + "元，是否确认结算？")
                 .setPositiveButton("确认", (dialog, which) -> {
-                    // 调用 ViewModel 进行原子化结算
-                    productViewModel.processCheckout(new ArrayList<>(settlementList), totalPrice, () -> {
-                        // 结算完成后的 UI 操作，回到主线程执行
-                        requireActivity().runOnUiThread(() -> {
-                            Toast.makeText(requireContext(), "结算成功！", Toast.LENGTH_SHORT).show();
-                            
-                            // 清空清单和总价
-                            settlementList.clear();
-                            totalPrice = 0.0;
-                            
-                            // 刷新 UI
-                            settlementAdapter.notifyDataSetChanged();
-                            updateTotalPrice();
-                            tvScanStatus.setText("结算完成");
-                        });
+                    // 订单落盘后即删除该单，数据库事务在后台提交，进度见状态面板
+                    productViewModel.submitCheckout(basketManager, basket, orderId -> {
+                        // 主线程回调，界面可能已销毁或重建
+                        if (!isAdded()) return;
+                        updateBasketViews();
+                        Toast.makeText(requireContext(), "结算成功！订单号：" + orderId, Toast.LENGTH_SHORT).show();
+                        if (getView() != null) {
+                            tvScanStatus.setText(basket.getLabel() + "结算完成");
+                        }
                     });
+                    updateBasketViews();
+                })
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    // 后台入账状态面板：入账失败优先提示，其次是待盘点的超卖记录；都没有且无待入账的订单时隐藏
+    private void updateCheckoutStatus() {
+        int pending = checkoutStatus == null ? 0 : checkoutStatus.getPendingCount();
+        int failed = checkoutStatus == null ? 0 : checkoutStatus.getFailed().size();
+        int shortages = stockShortages == null ? 0 : stockShortages.size();
+        if (pending == 0 && shortages == 0) {
+            tvCheckoutStatus.setVisibility(View.GONE);
+            return;
+        }
+        tvCheckoutStatus.setVisibility(View.VISIBLE);
+        if (failed > 0) {
+            tvCheckoutStatus.setText("入账失败 " + failed + " 单，正在自动重试，点击查看");
+            tvCheckoutStatus.setBackgroundColor(0xFFE53935);
+        } else if (shortages > 0) {
+            String text = "超卖 " + shortages + " 项待盘点，点击查看";
+            if (pending > 0) text += "（后台入账中：" + pending + " 单）";
+            tvCheckoutStatus.setText(text);
+            tvCheckoutStatus.setBackgroundColor(0xFFFB8C00);
+        } else {
+            tvCheckoutStatus.setText("后台入账中：" + pending + " 单");
+            tvCheckoutStatus.setBackgroundColor(0xFF607D8B);
+        }
+    }
+
+    // 超卖记录：库存已扣到 0，实际卖出的比记录的多，盘点修正库存后清除
+    private void showStockShortages() {
+        if (stockShortages == null || stockShortages.isEmpty()) return;
+        StringBuilder sb = new StringBuilder();
+        for (StockShortage shortage : stockShortages) {
+            if (sb.length() > 0) sb.append("\n");
+            sb.append("订单号 ").append(shortage.getOrderId())
+              .append("  ").append(shortage.getProductName())
+              .append("（").append(shortage.getBarcode()).append("）")
+              .append(" 超出 ").append(shortage.getQuantity()).append(" 件");
+        }
+        new AlertDialog.Builder(requireContext())
+                .setTitle("超卖待盘点")
+                .setMessage(sb.toString())
+                .setPositiveButton("已盘点，清除", (dialog, which) -> productViewModel.clearStockShortages())
+                .setNegativeButton("关闭", null)
+                .show();
+    }
+
+    private void showFailedCheckouts() {
+        if (checkoutStatus == null || checkoutStatus.getFailed().isEmpty()) return;
+        StringBuilder sb = new StringBuilder();
+        for (CheckoutOutbox.PendingCheckout checkout : checkoutStatus.getFailed()) {
+            if (sb.length() > 0) sb.append("\n\n");
+            sb.append("订单号 ").append(checkout.getOrderId())
+              .append("  ").append(MoneyUtil.format(checkout.getTotalFen())).append("元")
+              .append("  已重试 ").append(checkout.getAttempts()).append(" 次")
+              .append("\n").append(checkout.getLastError());
+        }
+        new AlertDialog.Builder(requireContext())
+                .setTitle("入账失败的订单")
+                .setMessage(sb.toString())
+                .setPositiveButton("立即重试", (dialog, which) -> productViewModel.retryFailedCheckouts())
+                .setNegativeButton("关闭", null)
+                .show();
+    }
+
+    private void showParkedBaskets() {
+        List<Basket> parked = basketManager.getParked();
+        if (parked.isEmpty()) {
+            Toast.makeText(requireContext(), "没有挂起的单子", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String[] items = new String[parked.size()];
+        for (int i = 0; i < parked.size(); i++) {
+            items[i] = parked.get(i).getSummary();
+        }
+        new AlertDialog.Builder(requireContext())
+                .setTitle("挂起的单子")
+                .setItems(items, (dialog, which) -> showBasketActions(parked.get(which)))
+                .setNegativeButton("取消", null)
+                .show();
+    }
+
+    private void showBasketActions(Basket basket) {
+        new AlertDialog.Builder(requireContext())
+                .setTitle(basket.getSummary())
+                .setItems(new String[]{"取回继续收银", "直接结算", "作废"}, (dialog, which) -> {
+                    if (which == 0) {
+                        // 当前单不为空时自动挂起
+                        basketManager.resume(basket);
+                        tvScanStatus.setText("已取回：" + basket.getLabel());
+                    } else if (which == 1) {
+                        confirmSettlement(basket);
+                    } else {
+                        new AlertDialog.Builder(requireContext())
+                                .setTitle("确认作废")
+                                .setMessage("作废后 " + basket.getLabel() + " 的商品将被清除，是否继续？")
+                                .setPositiveButton("确认", (confirmDialog, confirmWhich) -> {
+                                    basketManager.discard(basket);
+                                    updateBasketViews();
+                                })
+                                .setNegativeButton("取消", null)
+                                .show();
+                    }
                 })
                 .setNegativeButton("取消", null)
                 .show();
@@ -320,8 +574,17 @@ public class SettlementFragment extends Fragment implements CartItemAdapter.OnCa
     @Override
     public void onSaveInstanceState(@NonNull Bundle outState) {
         super.onSaveInstanceState(outState);
-        outState.putParcelableArrayList("settlementList", new ArrayList<>(settlementList));
-        outState.putDouble("totalPrice", totalPrice);
+        // 当前单在前，正在结算的单子不保存（由结算完成回调删除）
+        List<Basket> open = basketManager.getOpenBaskets();
+        int[] ids = new int[open.size()];
+        CartSnapshot[] snapshots = new CartSnapshot[open.size()];
+        for (int i = 0; i < open.size(); i++) {
+            ids[i] = open.get(i).getId();
+            snapshots[i] = CartSnapshot.of(open.get(i).getCart().snapshot());
+        }
+        outState.putIntArray(STATE_BASKET_IDS, ids);
+        outState.putParcelableArray(STATE_BASKET_SNAPSHOTS, snapshots);
+        outState.putInt(STATE_ACTIVE_BASKET, basketManager.getActive().getId());
     }
 
     @Override
@@ -0,0 +1,36 @@
+package com.example.storecashier;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+// 按天、按商品汇总的销量
+@Entity(tableName = "sales_sku_daily", primaryKeys = {"dayStart", "barcode"})
+public class SkuSalesDaily {
+    private long dayStart;
+    @NonNull
+    private String barcode;
+    private String productName;
+    private int quantity;
+    private long revenueFen;
+
+    public SkuSalesDaily(long dayStart, @NonNull String barcode, String productName, int quantity, long revenueFen) {
+        this.dayStart = dayStart;
+        this.barcode = barcode;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.revenueFen = revenueFen;
+    }
+
+    // Getter and Setter
+    public long getDayStart() { return dayStart; }
+    public void setDayStart(long dayStart) { this.dayStart = dayStart; }
+    @NonNull
+    public String getBarcode() { return barcode; }
+    public void setBarcode(@NonNull String barcode) { this.barcode = barcode; }
+    public String getProductName() { return productName; }
+    public void setProductName(String productName) { this.productName = productName; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public long getRevenueFen() { return revenueFen; }
+    public void setRevenueFen(long revenueFen) { this.revenueFen = revenueFen; }
+}
@@ -0,0 +1,36 @@
+package com.example.storecashier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 增量云备份的快照清单（Snapshot_*.json）
+ * 商品数据和图片都以内容哈希为名存放在 blobs/ 下，快照只记录引用哪些 blob
+ */
+public class SnapshotManifest {
+    public static final int FORMAT_VERSION = 1;
+
+    private int formatVersion = FORMAT_VERSION;
+    private long createdAt;
+    private int productCount;
+    // 商品数据块的哈希，按商品 id 分桶，顺序即恢复顺序
+    private List<String> productChunks = new ArrayList<>();
+    // 图片文件名 → 内容哈希
+    private Map<String, String> images = new HashMap<>();
+
+    public int getFormatVersion() { return formatVersion; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    public int getProductCount() { return productCount; }
+    public void setProductCount(int productCount) { this.productCount = productCount; }
+
+    public List<String> getProductChunks() { return productChunks; }
+    public void setProductChunks(List<String> productChunks) { this.productChunks = productChunks; }
+
+    public Map<String, String> getImages() { return images; }
+    public void setImages(Map<String, String> images) { this.images = images; }
+}
@@ -0,0 +1,106 @@
+package com.example.storecashier;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 库存预占台账：条码 → 已被占用的件数（所有未结算的单子 + 已提交但尚未入库的订单）
+ * - 作为 CartModel.Observer 挂在每一单购物车上（见 BasketManager），随加减商品增量更新
+ * - 扫码时用缓存中的库存减去已占用的件数判断是否超卖，O(1)，不查库
+ * - 订单入库、缓存库存刷新之后再释放该订单的占用（见 CheckoutOutbox）
+ * 购物车回调在主线程，订单的占用和释放在写通道，方法均加锁
+ */
+public class StockLedger implements CartModel.Observer {
+    // 可用库存不超过该值时提示库存紧张
+    public static final int LOW_STOCK_THRESHOLD = 3;
+
+    public enum Level { OK, LOW, OVERSOLD }
+
+    private final Map<String, Integer> reserved = new HashMap<>();
+    // 已提交待入库的订单：订单号 → (条码 → 件数)
+    private final Map<Long, Map<String, Integer>> orders = new HashMap<>();
+
+    @Override
+    public synchronized void onLineInserted(int position, CartItem item) {
+        adjust(item.getProduct().getBarcode(), item.getQuantity());
+    }
+
+    @Override
+    public synchronized void onLineChanged(int position, CartItem item, int oldQuantity) {
+        adjust(item.getProduct().getBarcode(), item.getQuantity() - oldQuantity);
+    }
+
+    @Override
+    public synchronized void onLineRemoved(int position, CartItem item) {
+        adjust(item.getProduct().getBarcode(), -item.getQuantity());
+    }
+
+    @Override
+    public synchronized void onCleared(List<CartItem> removedItems) {
+        for (CartItem item : removedItems) {
+            adjust(item.getProduct().getBarcode(), -item.getQuantity());
+        }
+    }
+
+    // 开始跟踪一单购物车，在主线程调用
+    public synchronized void attach(CartModel cart) {
+        cart.addObserver(this);
+        for (CartItem item : cart.snapshot()) {
+            adjust(item.getProduct().getBarcode(), item.getQuantity());
+        }
+    }
+
+    // 该单已结算、作废或界面已销毁：释放它占用的库存，在主线程调用
+    public synchronized void detach(CartModel cart) {
+        cart.removeObserver(this);
+        for (CartItem item : cart.snapshot()) {
+            adjust(item.getProduct().getBarcode(), -item.getQuantity());
+        }
+    }
+
+    // 订单已落盘待入库，入库前继续占用库存
+    public synchronized void holdOrder(long orderId, Map<String, Integer> quantities) {
+        if (orders.containsKey(orderId)) return;
+        orders.put(orderId, quantities);
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            adjust(entry.getKey(), entry.getValue());
+        }
+    }
+
+    // 订单已入库，库存已从缓存中扣减
+    public synchronized void releaseOrder(long orderId) {
+        Map<String, Integer> quantities = orders.remove(orderId);
+        if (quantities == null) return;
+        for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+            adjust(entry.getKey(), -entry.getValue());
+        }
+    }
+
+    public synchronized int getReserved(String barcode) {
+        Integer quantity = reserved.get(barcode);
+        return quantity == null ? 0 : quantity;
+    }
+
+    // 缓存库存减去已占用的件数，超卖时为负
+    public synchronized int getAvailable(Product product) {
+        return product.getStock() - getReserved(product.getBarcode());
+    }
+
+    public Level getLevel(Product product) {
+        int available = getAvailable(product);
+        if (available < 0) return Level.OVERSOLD;
+        if (available <= LOW_STOCK_THRESHOLD) return Level.LOW;
+        return Level.OK;
+    }
+
+    private void adjust(String barcode, int delta) {
+        if (delta == 0) return;
+        int quantity = getReserved(barcode) + delta;
+        if (quantity <= 0) {
+            reserved.remove(barcode);
+        } else {
+            reserved.put(barcode, quantity);
+        }
+    }
+}
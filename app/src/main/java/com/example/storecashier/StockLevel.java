@@ -0,0 +1,21 @@
+package com.example.storecashier;
+
+/**
+ * 商品库存快照（条码 + 当前库存），用于结算后回传最新库存
+ */
+public class StockLevel {
+    private String barcode;
+    private int stock;
+
+    public StockLevel() {}
+
+    public StockLevel(String barcode, int stock) {
+        this.barcode = barcode;
+        this.stock = stock;
+    }
+
+    public String getBarcode() { return barcode; }
+    public void setBarcode(String barcode) { this.barcode = barcode; }
+    public int getStock() { return stock; }
+    public void setStock(int stock) { this.stock = stock; }
+}
@@ -0,0 +1,45 @@
+package com.example.storecashier;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+// 结算时超出库存记录的件数（库存已扣到 0），与实物不符，盘点后清除
+@Entity(tableName = "stock_shortage",
+        foreignKeys = @ForeignKey(entity = Order.class,
+                parentColumns = "orderId",
+                childColumns = "orderId",
+                onDelete = ForeignKey.CASCADE),
+        indices = {@Index("orderId")})
+public class StockShortage {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+    private long orderId;
+    private long timestamp;
+    private String barcode;
+    private String productName;
+    private int quantity;
+
+    public StockShortage(long orderId, long timestamp, String barcode, String productName, int quantity) {
+        this.orderId = orderId;
+        this.timestamp = timestamp;
+        this.barcode = barcode;
+        this.productName = productName;
+        this.quantity = quantity;
+    }
+
+    // Getter and Setter
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+    public long getOrderId() { return orderId; }
+    public void setOrderId(long orderId) { this.orderId = orderId; }
+    public long getTimestamp() { return timestamp; }
+    public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+    public String getBarcode() { return barcode; }
+    public void setBarcode(String barcode) { this.barcode = barcode; }
+    public String getProductName() { return productName; }
+    public void setProductName(String productName) { this.productName = productName; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+}
@@ -0,0 +1,86 @@
+package com.example.storecashier;
+
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 恢复日志：只追加写入已完成的任务，恢复被中断后再次执行同一恢复时跳过这些任务
+ * 恢复全部完成后删除
+ */
+public class TransferJournal {
+    private static final String TAG = "TransferJournal";
+
+    private final File file;
+    private final Set<String> done = new HashSet<>();
+    private Writer writer;
+
+    public TransferJournal(File file) {
+        this.file = file;
+        load();
+    }
+
+    private void load() {
+        if (!file.exists()) return;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // 最后一行可能因中断而不完整，不完整的行不会与任何任务匹配
+                if (!line.isEmpty()) done.add(line);
+            }
+            Log.d(TAG, "Resuming with " + done.size() + " finished entries: " + file.getName());
+        } catch (IOException e) {
+            Log.w(TAG, "Read journal failed, starting over: " + e.getMessage());
+            done.clear();
+        }
+    }
+
+    public synchronized boolean isDone(String key) {
+        return done.contains(key);
+    }
+
+    public synchronized void markDone(String key) {
+        if (!done.add(key)) return;
+        try {
+            if (writer == null) {
+                writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+            }
+            writer.write(key);
+            writer.write('\n');
+            // 每条记录立即落盘，进程被杀时最多丢失正在进行的那一条
+            writer.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "Write journal failed: " + e.getMessage());
+        }
+    }
+
+    public synchronized int size() {
+        return done.size();
+    }
+
+    public synchronized void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException ignored) {
+        }
+        writer = null;
+    }
+
+    // 恢复成功完成后删除日志
+    public synchronized void delete() {
+        close();
+        done.clear();
+        file.delete();
+    }
+}
@@ -5,24 +5,33 @@ import android.content.SharedPreferences;
 import android.util.Log;
 
 import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 import com.thegrizzlylabs.sardineandroid.DavResource;
 import com.thegrizzlylabs.sardineandroid.Sardine;
 import com.thegrizzlylabs.sardineandroid.impl.OkHttpSardine;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Type;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import okhttp3.ConnectionPool;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -31,6 +40,9 @@ import okhttp3.Response;
 public class WebDAVManager {
     private static final String TAG = "WebDAVManager";
     private static final String PREFS_NAME = "webdav_config";
+    private static final String BLOBS_FOLDER = "blobs";
+    private static final String SNAPSHOT_PREFIX = "Snapshot_";
+    private static final String LEGACY_BACKUP_PREFIX = "Backup_";
 
     // 伪装成 PC 端 Chrome 浏览器，解决坚果云 403 Forbidden 问题
     private static final String FAKE_USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
@@ -40,21 +52,29 @@ public class WebDAVManager {
     private String username;
     private String password;
     private String folder;
+    // 并发传输数
+    private int transferParallelism;
 
     private Context context;
     private ProductDao productDao;
     private Sardine sardine;
+    private final Gson gson = new Gson();
+    // 所有请求共用一个 Client，并发上传/下载时复用连接池中的连接
+    private final OkHttpClient httpClient;
+    private WebDAVTransfer.Summary lastTransferSummary;
 
     public WebDAVManager(Context context) {
         this.context = context;
         this.productDao = AppDatabase.getDatabase(context).productDao();
         loadConfig();
+        this.httpClient = createCustomClient();
         initSardine();
     }
 
     // 构建带有强伪装 Header 的 OkHttpClient
     private OkHttpClient createCustomClient() {
         return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(Math.max(transferParallelism, 5), 5, TimeUnit.MINUTES))
                 .connectTimeout(15, TimeUnit.SECONDS)
                 .readTimeout(30, TimeUnit.SECONDS) // 下载大文件时增加超时时间
                 .writeTimeout(30, TimeUnit.SECONDS)
@@ -75,8 +95,8 @@ public class WebDAVManager {
     }
 
     private void initSardine() {
-        // 使用自定义 Client 初始化 Sardine
-        sardine = new OkHttpSardine(createCustomClient());
+        // 使用共享的自定义 Client 初始化 Sardine（设置账号时派生的 Client 仍共用同一连接池）
+        sardine = new OkHttpSardine(httpClient);
         if (username != null && !username.isEmpty() && password != null && !password.isEmpty()) {
             sardine.setCredentials(username, password);
         }
@@ -90,7 +110,7 @@ public class WebDAVManager {
             Log.d(TAG, "Testing connection to: " + testUrl);
 
             // 测试时也必须用伪装 Client
-            Sardine testSardine = new OkHttpSardine(createCustomClient());
+            Sardine testSardine = new OkHttpSardine(httpClient);
             testSardine.setCredentials(testUsername, testPassword);
 
             String validUrl = formatUrl(testUrl);
@@ -124,8 +144,21 @@ public class WebDAVManager {
         username = sharedPreferences.getString("username", "");
         password = sharedPreferences.getString("password", "");
         folder = sharedPreferences.getString("folder", "cashier");
+        transferParallelism = sharedPreferences.getInt("parallelism", WebDAVTransfer.DEFAULT_PARALLELISM);
     }
 
+    public void setTransferParallelism(int parallelism) {
+        this.transferParallelism = Math.max(1, parallelism);
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE).edit()
+                .putInt("parallelism", this.transferParallelism)
+                .apply();
+    }
+
+    public int getTransferParallelism() { return transferParallelism; }
+
+    // 最近一次图片传输的汇总，没有传输过则为 null
+    public WebDAVTransfer.Summary getLastTransferSummary() { return lastTransferSummary; }
+
     public void saveConfig(String url, String username, String password, String folder) {
         this.url = formatUrl(url);
         this.username = username;
@@ -148,37 +181,78 @@ public class WebDAVManager {
 
     public String getUrl() { return url; }
 
-    // ================== 备份：文件夹结构（products.json + images/） ==================
+    // ================== 备份：增量快照（blobs/ + Snapshot_*.json） ==================
     public boolean backup() {
         try {
             if (url.isEmpty()) {
                 Log.e(TAG, "Backup failed: URL is empty");
                 return false;
             }
+            lastTransferSummary = null;
 
-            // 1. 生成备份文件夹名
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
-            String backupFolderName = "Backup_" + sdf.format(new Date());
-
-            // 2. 创建本地 JSON 文件
-            List<Product> allProducts = productDao.getAllProductsSync();
-            File localJsonFile = createLocalJsonBackup(allProducts);
-            if (localJsonFile == null) return false;
-
-            // 3. 确保云端根目录存在，然后创建备份子文件夹
+            // 1. 确保云端根目录和 blobs 目录存在，并一次性列出已有的 blob
             String remoteRootUrl = ensureFolderExists();
-            String backupFolderUrl = remoteRootUrl + "/" + backupFolderName;
-            ensureSubfolderExists(backupFolderUrl);
-
-            // 4. 上传 products.json
-            String remoteJsonUrl = backupFolderUrl + "/products.json";
-            Log.d(TAG, "Uploading JSON to: " + remoteJsonUrl);
-            sardine.put(remoteJsonUrl, localJsonFile, "application/json");
+            String blobsUrl = remoteRootUrl + "/" + BLOBS_FOLDER;
+            ensureSubfolderExists(blobsUrl);
+            Set<String> remoteBlobs = listBlobNames(blobsUrl);
+
+            File chunkDir = new File(getLocalCacheDir(), "chunks");
+            clearDirectory(chunkDir);
+
+            SnapshotManifest manifest = new SnapshotManifest();
+            List<WebDAVTransfer.UploadTask> tasks = new ArrayList<>();
+            Set<String> queuedBlobs = new HashSet<>();
+
+            // 2. 商品数据按 id 分桶，只有云端没有的数据块才写入本地并上传
+            int rows = new ProductJsonCodec(productDao).exportChunks((json, chunkRows) -> {
+                String hash = HashUtil.sha256Hex(json);
+                manifest.getProductChunks().add(hash);
+                if (!remoteBlobs.contains(hash) && queuedBlobs.add(hash)) {
+                    File chunkFile = new File(chunkDir, hash);
+                    try (OutputStream out = new FileOutputStream(chunkFile)) {
+                        out.write(json);
+                    }
+                    tasks.add(new WebDAVTransfer.UploadTask(chunkFile, blobsUrl + "/" + hash, "application/json"));
+                }
+            });
+            manifest.setProductCount(rows);
+
+            // 3. 图片按内容哈希去重，同一张图片只上传一次
+            FileHashCache hashCache = getHashCache();
+            for (String imagePath : productDao.getAllImagePaths()) {
+                File imageFile = new File(imagePath);
+                if (!imageFile.exists()) {
+                    Log.w(TAG, "Image file not found, skipping: " + imagePath);
+                    continue;
+                }
+                String hash = hashCache.get(imageFile);
+                manifest.getImages().put(imageFile.getName(), hash);
+                if (!remoteBlobs.contains(hash) && queuedBlobs.add(hash)) {
+                    tasks.add(new WebDAVTransfer.UploadTask(imageFile, blobsUrl + "/" + hash, "image/jpeg"));
+                }
+            }
+            hashCache.save();
+
+            // 4. 并发上传新增的 blob
+            Log.d(TAG, "Uploading " + tasks.size() + " new blobs, " + remoteBlobs.size() + " already on server");
+            lastTransferSummary = new WebDAVTransfer(sardine, transferParallelism).upload(tasks);
+            if (lastTransferSummary.getFailed() > 0) {
+                // 不写快照清单，已上传的 blob 下次备份时会被复用
+                Log.e(TAG, "Backup failed: " + lastTransferSummary.getFailed() + " blobs not uploaded");
+                return false;
+            }
 
-            // 5. 上传商品图片
-            uploadImages(allProducts, backupFolderUrl);
+            // 5. 最后上传快照清单，清单存在即代表该快照引用的 blob 都已就绪
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
+            String snapshotName = SNAPSHOT_PREFIX + sdf.format(new Date()) + ".json";
+            manifest.setCreatedAt(System.currentTimeMillis());
+            File manifestFile = new File(getLocalCacheDir(), "manifest.json");
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(manifestFile), StandardCharsets.UTF_8))) {
+                gson.toJson(manifest, writer);
+            }
+            sardine.put(remoteRootUrl + "/" + snapshotName, manifestFile, "application/json");
 
-            Log.d(TAG, "Backup successful: " + backupFolderName);
+            Log.d(TAG, "Backup successful: " + snapshotName + ", " + lastTransferSummary);
             return true;
         } catch (Exception e) {
             Log.e(TAG, "Backup failed exception: " + e.getMessage());
@@ -187,63 +261,41 @@ public class WebDAVManager {
         }
     }
 
-    private File createLocalJsonBackup(List<Product> allProducts) {
-        try {
-            File backupDir = new File(context.getExternalFilesDir(null), "webdav_cache");
-            if (!backupDir.exists()) backupDir.mkdirs();
-
-            File backupFile = new File(backupDir, "products.json");
-
-            Gson gson = new Gson();
-            String json = gson.toJson(allProducts);
-
-            try (FileWriter writer = new FileWriter(backupFile)) {
-                writer.write(json);
+    private Set<String> listBlobNames(String blobsUrl) throws IOException {
+        Set<String> names = new HashSet<>();
+        for (DavResource res : sardine.list(blobsUrl)) {
+            if (!res.isDirectory()) {
+                names.add(res.getName());
             }
-            return backupFile;
-        } catch (Exception e) {
-            Log.e(TAG, "Local backup creation failed: " + e.getMessage());
-            return null;
         }
+        return names;
     }
 
-    private void uploadImages(List<Product> products, String backupFolderUrl) {
-        String imagesFolderUrl = backupFolderUrl + "/images";
-        boolean imagesFolderCreated = false;
-
-        for (Product product : products) {
-            String imagePath = product.getImagePath();
-            if (imagePath == null || imagePath.isEmpty()) continue;
-
-            File imageFile = new File(imagePath);
-            if (!imageFile.exists()) {
-                Log.w(TAG, "Image file not found, skipping: " + imagePath);
-                continue;
-            }
+    private File getLocalCacheDir() {
+        File cacheDir = new File(context.getExternalFilesDir(null), "webdav_cache");
+        if (!cacheDir.exists()) cacheDir.mkdirs();
+        return cacheDir;
+    }
 
-            if (!imagesFolderCreated) {
-                try {
-                    ensureSubfolderExists(imagesFolderUrl);
-                    imagesFolderCreated = true;
-                } catch (IOException e) {
-                    Log.e(TAG, "Failed to create images folder: " + e.getMessage());
-                    return;
-                }
-            }
+    private FileHashCache getHashCache() {
+        return new FileHashCache(new File(context.getFilesDir(), "file_hashes.json"));
+    }
 
-            String remoteImageUrl = imagesFolderUrl + "/" + imageFile.getName();
-            try {
-                Log.d(TAG, "Uploading image: " + remoteImageUrl);
-                sardine.put(remoteImageUrl, imageFile, "image/jpeg");
-            } catch (IOException e) {
-                Log.e(TAG, "Failed to upload image " + imageFile.getName() + ": " + e.getMessage());
-            }
+    private static void clearDirectory(File dir) {
+        if (!dir.exists()) {
+            dir.mkdirs();
+            return;
+        }
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            file.delete();
         }
     }
 
     // ================== 获取备份列表和恢复 ==================
 
-    // 获取云端备份文件夹列表
+    // 获取云端备份列表：增量快照（Snapshot_*.json）和旧版备份文件夹（Backup_*）
     public List<String> listBackupFolders() throws IOException {
         if (url.isEmpty()) return new ArrayList<>();
 
@@ -254,100 +306,146 @@ public class WebDAVManager {
         List<String> folderNames = new ArrayList<>();
 
         for (DavResource res : resources) {
-            if (res.isDirectory() && res.getName().startsWith("Backup_")) {
-                folderNames.add(res.getName());
+            String name = res.getName();
+            if (res.isDirectory() && name.startsWith(LEGACY_BACKUP_PREFIX)) {
+                folderNames.add(name);
+            } else if (!res.isDirectory() && name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(".json")) {
+                folderNames.add(name);
             }
         }
-        // 按名称倒序排列（时间最新的在最上面）
-        Collections.sort(folderNames, Collections.reverseOrder());
+        // 按时间部分倒序排列（最新的在最上面），两种格式混排
+        Collections.sort(folderNames, (a, b) ->
+                b.substring(b.indexOf('_') + 1).compareTo(a.substring(a.indexOf('_') + 1)));
         return folderNames;
     }
 
-    // 恢复指定备份文件夹
+    // 恢复指定快照或旧版备份文件夹
+    // 中断或部分图片失败时返回 false，再次恢复同一备份会从恢复日志处继续
     public boolean restoreFile(String folderName) {
-        try {
-            if (url.isEmpty()) return false;
-
-            String remoteFolderUrl = url + "/" + folder;
-            String backupFolderUrl = remoteFolderUrl + "/" + folderName;
+        if (url.isEmpty()) return false;
+        lastTransferSummary = null;
 
-            // 1. 下载 products.json
-            String jsonUrl = backupFolderUrl + "/products.json";
-            Log.d(TAG, "Downloading JSON: " + jsonUrl);
-
-            byte[] jsonData;
-            try (InputStream inputStream = sardine.get(jsonUrl);
-                 ByteArrayOutputStream buffer = new ByteArrayOutputStream()) {
-                byte[] data = new byte[4096];
-                int nRead;
-                while ((nRead = inputStream.read(data, 0, data.length)) != -1) {
-                    buffer.write(data, 0, nRead);
-                }
-                jsonData = buffer.toByteArray();
+        TransferJournal journal = new TransferJournal(new File(context.getFilesDir(),
+                "restore_" + folderName.replaceAll("[^A-Za-z0-9_.-]", "_") + ".journal"));
+        try {
+            boolean success = folderName.startsWith(SNAPSHOT_PREFIX)
+                    ? restoreSnapshot(folderName, journal)
+                    : restoreLegacyFolder(folderName, journal);
+            if (success) {
+                journal.delete();
             }
-
-            String jsonStr = new String(jsonData, "UTF-8");
-            Type listType = new TypeToken<List<Product>>(){}.getType();
-            List<Product> products = new Gson().fromJson(jsonStr, listType);
-
-            // 2. 下载图片文件到本地
-            downloadImages(backupFolderUrl, products);
-
-            // 3. 入库
-            productDao.insertAll(products);
-            return true;
-
+            return success;
         } catch (Exception e) {
             Log.e(TAG, "Restore failed: " + e.getMessage());
             e.printStackTrace();
             return false;
+        } finally {
+            journal.close();
         }
     }
 
-    private void downloadImages(String backupFolderUrl, List<Product> products) {
-        String imagesFolderUrl = backupFolderUrl + "/images";
-        File localImagesDir = new File(context.getFilesDir(), "images");
-        if (!localImagesDir.exists()) localImagesDir.mkdirs();
+    private boolean restoreLegacyFolder(String folderName, TransferJournal journal) throws IOException {
+        String remoteFolderUrl = url + "/" + folder;
+        String backupFolderUrl = remoteFolderUrl + "/" + folderName;
 
-        // 列出远程 images 目录
-        List<DavResource> imageResources;
+        // 1. 先下载图片文件到本地，入库时才能判断图片是否可用
+        File localImagesDir = getLocalImagesDir();
+        String imagesFolderUrl = backupFolderUrl + "/images";
+        List<WebDAVTransfer.DownloadTask> tasks = new ArrayList<>();
         try {
-            imageResources = sardine.list(imagesFolderUrl);
+            for (DavResource res : sardine.list(imagesFolderUrl)) {
+                if (res.isDirectory()) continue;
+                // 旧版备份没有内容哈希，按大小和 ETag 判断本地文件是否相同
+                Long size = res.getContentLength();
+                tasks.add(new WebDAVTransfer.DownloadTask(imagesFolderUrl + "/" + res.getName(),
+                        new File(localImagesDir, res.getName()), null,
+                        size == null ? -1 : size, res.getEtag()));
+            }
         } catch (IOException e) {
             Log.w(TAG, "No images folder in backup, skipping image restore");
-            return;
         }
+        lastTransferSummary = new WebDAVTransfer(sardine, transferParallelism)
+                .download(tasks, getHashCache(), journal);
+
+        // 2. 流式下载 products.json 并分批入库，同时把图片路径改为本地路径
+        String productsKey = "products:" + folderName;
+        if (!journal.isDone(productsKey)) {
+            String jsonUrl = backupFolderUrl + "/products.json";
+            Log.d(TAG, "Downloading JSON: " + jsonUrl);
+            try (InputStream inputStream = sardine.get(jsonUrl);
+                 Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+                int rows = new ProductJsonCodec(productDao).importAll(reader,
+                        product -> relinkImagePath(product, localImagesDir), null);
+                Log.d(TAG, "Restored " + rows + " products");
+            }
+            journal.markDone(productsKey);
+        }
+        Log.d(TAG, "Image restore: " + lastTransferSummary);
+        return lastTransferSummary.getFailed() == 0;
+    }
 
-        for (DavResource res : imageResources) {
-            if (res.isDirectory()) continue;
+    private boolean restoreSnapshot(String snapshotName, TransferJournal journal) throws IOException {
+        String remoteRootUrl = url + "/" + folder;
+        String blobsUrl = remoteRootUrl + "/" + BLOBS_FOLDER;
 
-            String fileName = res.getName();
-            String remoteImageUrl = imagesFolderUrl + "/" + fileName;
-            File localImageFile = new File(localImagesDir, fileName);
+        SnapshotManifest manifest;
+        try (InputStream inputStream = sardine.get(remoteRootUrl + "/" + snapshotName);
+             Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            manifest = gson.fromJson(reader, SnapshotManifest.class);
+        }
+        if (manifest == null || manifest.getFormatVersion() > SnapshotManifest.FORMAT_VERSION) {
+            Log.e(TAG, "Unsupported snapshot manifest: " + snapshotName);
+            return false;
+        }
 
-            try (InputStream is = sardine.get(remoteImageUrl);
-                 java.io.FileOutputStream fos = new java.io.FileOutputStream(localImageFile)) {
-                byte[] buf = new byte[4096];
-                int len;
-                while ((len = is.read(buf)) != -1) {
-                    fos.write(buf, 0, len);
-                }
-                Log.d(TAG, "Downloaded image: " + fileName);
-            } catch (IOException e) {
-                Log.e(TAG, "Failed to download image " + fileName + ": " + e.getMessage());
+        // 1. 并发下载图片，本地已有相同内容的跳过，下载后校验哈希
+        File localImagesDir = getLocalImagesDir();
+        List<WebDAVTransfer.DownloadTask> tasks = new ArrayList<>(manifest.getImages().size());
+        for (Map.Entry<String, String> image : manifest.getImages().entrySet()) {
+            tasks.add(new WebDAVTransfer.DownloadTask(blobsUrl + "/" + image.getValue(),
+                    new File(localImagesDir, image.getKey()), image.getValue(), -1, null));
+        }
+        lastTransferSummary = new WebDAVTransfer(sardine, transferParallelism)
+                .download(tasks, getHashCache(), journal);
+
+        // 2. 按快照中的顺序逐块导入商品，已导入的数据块记入恢复日志
+        ProductJsonCodec codec = new ProductJsonCodec(productDao);
+        int rows = 0;
+        for (String chunkHash : manifest.getProductChunks()) {
+            String chunkKey = "chunk:" + chunkHash;
+            if (journal.isDone(chunkKey)) continue;
+            try (InputStream inputStream = sardine.get(blobsUrl + "/" + chunkHash);
+                 Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+                rows += codec.importAll(reader, product -> relinkImagePath(product, localImagesDir), null);
             }
+            journal.markDone(chunkKey);
         }
+        Log.d(TAG, "Restored " + rows + " products from " + snapshotName + ", images: " + lastTransferSummary);
+        return lastTransferSummary.getFailed() == 0;
+    }
 
-        // 更新所有商品的 imagePath 为新的本地路径
-        for (Product product : products) {
-            String oldPath = product.getImagePath();
-            if (oldPath == null || oldPath.isEmpty()) continue;
+    private File getLocalImagesDir() {
+        File localImagesDir = new File(context.getFilesDir(), "images");
+        if (!localImagesDir.exists()) localImagesDir.mkdirs();
+        return localImagesDir;
+    }
 
-            String fileName = new File(oldPath).getName();
-            File newFile = new File(localImagesDir, fileName);
-            if (newFile.exists()) {
-                product.setImagePath(newFile.getAbsolutePath());
-            }
+    // 将商品的 imagePath 更新为新的本地路径
+    // 缩略图不随备份上传，本地没有同名缩略图时置空，启动时会重新生成
+    private void relinkImagePath(Product product, File localImagesDir) {
+        String oldThumbnailPath = product.getThumbnailPath();
+        if (oldThumbnailPath != null) {
+            File thumbnailFile = new File(ImagePipeline.getThumbnailsDir(context), new File(oldThumbnailPath).getName());
+            product.setThumbnailPath(thumbnailFile.exists() ? thumbnailFile.getAbsolutePath() : null);
+        }
+
+        String oldPath = product.getImagePath();
+        if (oldPath == null || oldPath.isEmpty()) return;
+
+        String fileName = new File(oldPath).getName();
+        File newFile = new File(localImagesDir, fileName);
+        if (newFile.exists()) {
+            product.setImagePath(newFile.getAbsolutePath());
         }
     }
 
@@ -0,0 +1,305 @@
+package com.example.storecashier;
+
+import android.util.Log;
+
+import com.thegrizzlylabs.sardineandroid.Sardine;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebDAV 并发传输管道：
+ * - 固定并发数，多个文件同时上传/下载，复用同一个 OkHttpClient 的连接池
+ * - 单个文件失败按指数退避重试
+ * - 下载时本地已有相同内容的文件直接跳过，先写 .part 再改名，并记录恢复日志，中断后可续传
+ * - 结束后给出成功/失败/跳过数量和传输速率
+ * 通过构造参数传入 Sardine，可替换为本地的 WebDAV 模拟实现
+ */
+public class WebDAVTransfer {
+    private static final String TAG = "WebDAVTransfer";
+    public static final int DEFAULT_PARALLELISM = 4;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long INITIAL_BACKOFF_MS = 500;
+
+    // 单个待上传文件
+    public static class UploadTask {
+        final File file;
+        final String remoteUrl;
+        final String contentType;
+
+        public UploadTask(File file, String remoteUrl, String contentType) {
+            this.file = file;
+            this.remoteUrl = remoteUrl;
+            this.contentType = contentType;
+        }
+    }
+
+    // 单个待下载文件；expectedHash 已知时按内容比较，否则按大小和 ETag 比较
+    public static class DownloadTask {
+        final String remoteUrl;
+        final File target;
+        final String expectedHash;
+        final long expectedSize;
+        final String etag;
+
+        public DownloadTask(String remoteUrl, File target, String expectedHash, long expectedSize, String etag) {
+            this.remoteUrl = remoteUrl;
+            this.target = target;
+            this.expectedHash = expectedHash;
+            this.expectedSize = expectedSize;
+            this.etag = etag;
+        }
+
+        // 恢复日志中的记录，同一目标文件内容不同时视为不同任务
+        String journalKey() {
+            String version = expectedHash != null ? expectedHash : (etag != null ? etag : String.valueOf(expectedSize));
+            return target.getAbsolutePath() + "|" + version;
+        }
+    }
+
+    private enum Outcome { TRANSFERRED, FAILED, SKIPPED }
+
+    private interface Worker<T> {
+        // 返回结果，传输成功时通过 bytes 累加字节数
+        Outcome run(T task, AtomicLong bytes);
+    }
+
+    // 传输结果汇总
+    public static class Summary {
+        private final int transferred;
+        private final int failed;
+        private final int skipped;
+        private final long bytes;
+        private final long elapsedMillis;
+
+        public Summary(int transferred, int failed, int skipped, long bytes, long elapsedMillis) {
+            this.transferred = transferred;
+            this.failed = failed;
+            this.skipped = skipped;
+            this.bytes = bytes;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getTransferred() { return transferred; }
+        public int getFailed() { return failed; }
+        public int getSkipped() { return skipped; }
+        public long getBytes() { return bytes; }
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public double getBytesPerSecond() {
+            return elapsedMillis == 0 ? 0.0 : bytes * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.getDefault(), "成功 %d，失败 %d，跳过 %d，%.1f KB，%.1f KB/s",
+                    transferred, failed, skipped, bytes / 1024.0, getBytesPerSecond() / 1024.0);
+        }
+    }
+
+    private final Sardine sardine;
+    private final int parallelism;
+    private final long initialBackoffMillis;
+
+    public WebDAVTransfer(Sardine sardine, int parallelism) {
+        this(sardine, parallelism, INITIAL_BACKOFF_MS);
+    }
+
+    // 测试中缩短重试间隔
+    WebDAVTransfer(Sardine sardine, int parallelism, long initialBackoffMillis) {
+        this.sardine = sardine;
+        this.parallelism = Math.max(1, parallelism);
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+    /**
+     * 并发上传所有文件，阻塞直到全部完成，需在后台线程调用
+     */
+    public Summary upload(List<UploadTask> tasks) {
+        Summary summary = runAll(tasks, (task, bytes) -> {
+            if (!task.file.exists()) {
+                Log.w(TAG, "File not found, skipping: " + task.file);
+                return Outcome.SKIPPED;
+            }
+            long length = task.file.length();
+            if (!uploadWithRetry(task)) {
+                return Outcome.FAILED;
+            }
+            bytes.addAndGet(length);
+            return Outcome.TRANSFERRED;
+        });
+        Log.d(TAG, "Upload finished: " + summary);
+        return summary;
+    }
+
+    /**
+     * 并发下载所有文件，阻塞直到全部完成，需在后台线程调用
+     * @param journal 恢复日志，已完成的任务直接跳过；可为 null
+     */
+    public Summary download(List<DownloadTask> tasks, FileHashCache hashCache, TransferJournal journal) {
+        Summary summary = runAll(tasks, (task, bytes) -> {
+            if (journal != null && task.target.exists() && journal.isDone(task.journalKey())) {
+                return Outcome.SKIPPED;
+            }
+            if (isUpToDate(task, hashCache)) {
+                if (journal != null) journal.markDone(task.journalKey());
+                return Outcome.SKIPPED;
+            }
+            long length = downloadWithRetry(task, hashCache);
+            if (length < 0) {
+                return Outcome.FAILED;
+            }
+            bytes.addAndGet(length);
+            if (journal != null) journal.markDone(task.journalKey());
+            return Outcome.TRANSFERRED;
+        });
+        hashCache.save();
+        Log.d(TAG, "Download finished: " + summary);
+        return summary;
+    }
+
+    private <T> Summary runAll(List<T> tasks, Worker<T> worker) {
+        long startedAt = System.currentTimeMillis();
+        AtomicInteger transferred = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, tasks.size())));
+        try {
+            List<Future<?>> futures = new ArrayList<>(tasks.size());
+            for (T task : tasks) {
+                futures.add(pool.submit(() -> {
+                    switch (worker.run(task, bytes)) {
+                        case TRANSFERRED: transferred.incrementAndGet(); break;
+                        case FAILED: failed.incrementAndGet(); break;
+                        case SKIPPED: skipped.incrementAndGet(); break;
+                    }
+                }));
+            }
+            awaitAll(futures);
+        } finally {
+            pool.shutdown();
+        }
+
+        return new Summary(transferred.get(), failed.get(), skipped.get(), bytes.get(),
+                System.currentTimeMillis() - startedAt);
+    }
+
+    // 本地文件是否已与云端一致
+    private static boolean isUpToDate(DownloadTask task, FileHashCache hashCache) {
+        if (!task.target.exists()) return false;
+        try {
+            if (task.expectedHash != null) {
+                return task.expectedHash.equals(hashCache.get(task.target));
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        // 没有内容哈希（旧版备份）：大小一致，且上次下载记录的 ETag 未变化
+        if (task.expectedSize < 0 || task.target.length() != task.expectedSize) return false;
+        String knownEtag = hashCache.getEtag(task.target);
+        return task.etag == null || knownEtag == null || task.etag.equals(knownEtag);
+    }
+
+    private long downloadWithRetry(DownloadTask task, FileHashCache hashCache) {
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                return downloadOnce(task, hashCache);
+            } catch (IOException e) {
+                Log.w(TAG, "Download failed (" + attempt + "/" + MAX_ATTEMPTS + ") " + task.remoteUrl + ": " + e.getMessage());
+                if (attempt == MAX_ATTEMPTS || !sleep(backoff)) {
+                    return -1;
+                }
+                backoff *= 2;
+            }
+        }
+        return -1;
+    }
+
+    // 先写入 .part 临时文件，校验通过后再替换目标文件，中断时不会留下半个文件
+    private long downloadOnce(DownloadTask task, FileHashCache hashCache) throws IOException {
+        File partFile = new File(task.target.getPath() + ".part");
+        MessageDigest digest = HashUtil.newDigest();
+        long length = 0;
+        try (InputStream in = sardine.get(task.remoteUrl);
+             OutputStream out = new FileOutputStream(partFile)) {
+            byte[] buf = new byte[64 * 1024];
+            int len;
+            while ((len = in.read(buf)) != -1) {
+                out.write(buf, 0, len);
+                digest.update(buf, 0, len);
+                length += len;
+            }
+        } catch (IOException e) {
+            partFile.delete();
+            throw e;
+        }
+
+        String hash = HashUtil.toHex(digest.digest());
+        if (task.expectedHash != null && !task.expectedHash.equals(hash)) {
+            partFile.delete();
+            throw new IOException("Content hash mismatch");
+        }
+        if (!partFile.renameTo(task.target)) {
+            partFile.delete();
+            throw new IOException("Rename failed: " + partFile);
+        }
+        hashCache.put(task.target, hash, task.etag);
+        return length;
+    }
+
+    private boolean uploadWithRetry(UploadTask task) {
+        long backoff = initialBackoffMillis;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                sardine.put(task.remoteUrl, task.file, task.contentType);
+                return true;
+            } catch (IOException e) {
+                Log.w(TAG, "Upload failed (" + attempt + "/" + MAX_ATTEMPTS + ") " + task.remoteUrl + ": " + e.getMessage());
+                if (attempt == MAX_ATTEMPTS || !sleep(backoff)) {
+                    return false;
+                }
+                backoff *= 2;
+            }
+        }
+        return false;
+    }
+
+    static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    static void awaitAll(List<Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                Log.e(TAG, "Transfer task crashed: " + e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package android.util;
+
+/**
+ * JVM 单元测试用的 Log：android.jar 中的存根调用即抛异常，
+ * 被测类（WebDAVTransfer、CartJournal 等）在出错分支会打日志，这里改为输出到控制台
+ */
+public final class Log {
+    private Log() {}
+
+    public static int d(String tag, String msg) {
+        return print("D", tag, msg);
+    }
+
+    public static int i(String tag, String msg) {
+        return print("I", tag, msg);
+    }
+
+    public static int w(String tag, String msg) {
+        return print("W", tag, msg);
+    }
+
+    public static int e(String tag, String msg) {
+        return print("E", tag, msg);
+    }
+
+    public static int e(String tag, String msg, Throwable tr) {
+        return print("E", tag, msg + "\n" + tr);
+    }
+
+    private static int print(String level, String tag, String msg) {
+        System.out.println(level + "/" + tag + ": " + msg);
+        return 0;
+    }
+}
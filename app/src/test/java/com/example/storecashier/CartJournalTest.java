@@ -0,0 +1,144 @@
+package com.example.storecashier;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 购物车预写日志的重放与压缩：日志由 CartModel 的修改驱动，在当前线程同步写入
+ */
+public class CartJournalTest {
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File file;
+    private CartModel cart;
+    private CartJournal journal;
+
+    @Before
+    public void setUp() {
+        file = new File(temp.getRoot(), "cart_1.journal");
+        cart = new CartModel();
+        journal = new CartJournal(file, Runnable::run);
+        cart.addObserver(journal);
+    }
+
+    @Test
+    public void replay_appliesAddQuantityRemoveInOrder() {
+        cart.add(product("001", 2.50));
+        cart.add(product("002", 3.00));
+        cart.add(product("003", 1.20));
+        cart.increment("001");
+        cart.setQuantity("003", 5);
+        cart.remove("002");
+        journal.close();
+
+        // 显示顺序：最新加入的在前
+        assertEquals("003x5@120 001x2@250", describe(new CartJournal(file, Runnable::run).replay()));
+    }
+
+    @Test
+    public void replay_ignoresTornLastRecord() throws IOException {
+        cart.add(product("001", 2.50));
+        cart.increment("001");
+        journal.close();
+        // 进程在写到一半时被杀
+        append("A\t002\t1\t3");
+
+        assertEquals("001x2@250", describe(new CartJournal(file, Runnable::run).replay()));
+    }
+
+    @Test
+    public void replay_skipsUnparseableRecord() throws IOException {
+        cart.add(product("001", 2.50));
+        journal.close();
+        append("Q\t001\tabc\n");
+        append("X\t001\n");
+        append("A\t002\n");
+
+        assertEquals("001x1@250", describe(new CartJournal(file, Runnable::run).replay()));
+    }
+
+    @Test
+    public void replay_removeThenReAdd() {
+        cart.add(product("001", 2.50));
+        cart.add(product("002", 3.00));
+        cart.remove("001");
+        cart.add(product("001", 2.50));
+        cart.add(product("003", 1.20));
+        cart.remove("003");
+        journal.close();
+
+        // 再次加入的商品按新的加入顺序排列，数量从 1 开始
+        assertEquals("001x1@250 002x1@300", describe(new CartJournal(file, Runnable::run).replay()));
+    }
+
+    @Test
+    public void compaction_preservesReplayedState() throws IOException {
+        cart.add(product("001", 2.50));
+        cart.add(product("002", 3.00));
+        for (int quantity = 2; quantity <= 40; quantity++) {
+            cart.setQuantity("002", quantity);
+        }
+        cart.add(product("003", 1.20));
+        cart.remove("001");
+        journal.close();
+
+        CartJournal recovered = new CartJournal(file, Runnable::run);
+        List<CartJournal.Entry> entries = recovered.replay();
+        recovered.compactIfNeeded(entries);
+
+        assertEquals(2, Files.readAllLines(file.toPath()).size());
+        assertEquals(describe(entries), describe(new CartJournal(file, Runnable::run).replay()));
+        assertEquals("003x1@120 002x40@300", describe(entries));
+    }
+
+    @Test
+    public void rewrite_thenAppend_replaysSameState() {
+        cart.add(product("001", 2.50));
+        cart.add(product("002", 3.00));
+        cart.increment("002");
+        journal.rewrite(journal.replay());
+        // 重写后继续追加
+        cart.increment("001");
+        journal.close();
+
+        assertEquals("002x2@300 001x2@250", describe(new CartJournal(file, Runnable::run).replay()));
+    }
+
+    @Test
+    public void replay_missingFileIsEmpty() {
+        assertTrue(new CartJournal(new File(temp.getRoot(), "none.journal"), Runnable::run).replay().isEmpty());
+    }
+
+    private void append(String text) throws IOException {
+        try (OutputStream out = new FileOutputStream(file, true)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Product product(String barcode, double price) {
+        return new Product(barcode, "商品" + barcode, price, 100, "分类", null);
+    }
+
+    private static String describe(List<CartJournal.Entry> entries) {
+        List<String> parts = new ArrayList<>(entries.size());
+        for (CartJournal.Entry entry : entries) {
+            parts.add(entry.getBarcode() + "x" + entry.getQuantity() + "@" + entry.getUnitPriceFen());
+        }
+        return String.join(" ", parts);
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.storecashier;
+
+import android.database.Cursor;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 结算热路径中纯 Java 部分的基准（条码缓存、购物车、商品 JSON 编解码）
+ * 结算事务和 Parcelable 依赖真机，见 androidTest 中的基准
+ */
+public class CheckoutHotPathBenchmarkTest {
+    private static final int CATALOG_SIZE = 1000;
+
+    private List<Product> catalog;
+    private String[] scanSequence;
+
+    @Before
+    public void setUp() {
+        assumeTrue("Run with -Pbenchmark", MicroBenchmark.ENABLED);
+        catalog = createProducts(CATALOG_SIZE);
+        // 模拟高峰期扫码：随机扫描常用商品
+        Random random = new Random(42);
+        scanSequence = new String[10_000];
+        for (int i = 0; i < scanSequence.length; i++) {
+            scanSequence[i] = catalog.get(random.nextInt(CATALOG_SIZE)).getBarcode();
+        }
+    }
+
+    @Test
+    public void barcodeLookup_cacheHit() throws Exception {
+        ProductCache cache = new ProductCache(CATALOG_SIZE);
+        for (Product product : catalog) {
+            cache.put(product);
+        }
+        MicroBenchmark.measure("barcodeLookup_cacheHit", 20, 50, scanSequence.length, () -> {
+            for (String barcode : scanSequence) {
+                if (cache.get(barcode) == null) throw new AssertionError(barcode);
+            }
+        });
+    }
+
+    @Test
+    public void cart_scan100Lines() throws Exception {
+        // 100 种商品各扫 5 次，再改数量、删行，最后取合计
+        MicroBenchmark.measure("cart_scan100Lines", 50, 200, 1, () -> {
+            CartModel cart = new CartModel();
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < 100; i++) {
+                    cart.add(catalog.get(i));
+                }
+            }
+            for (int i = 0; i < 100; i += 10) {
+                cart.setQuantity(catalog.get(i).getBarcode(), 2);
+                cart.remove(catalog.get(i + 1).getBarcode());
+            }
+            if (cart.getTotalFen() <= 0) throw new AssertionError();
+        });
+    }
+
+    @Test
+    public void json_export10k() throws Exception {
+        measureExport("json_export10k", 10_000, 5, 20);
+    }
+
+    @Test
+    public void json_export100k() throws Exception {
+        measureExport("json_export100k", 100_000, 2, 5);
+    }
+
+    @Test
+    public void json_import10k() throws Exception {
+        measureImport("json_import10k", 10_000, 5, 20);
+    }
+
+    @Test
+    public void json_import100k() throws Exception {
+        measureImport("json_import100k", 100_000, 2, 5);
+    }
+
+    private void measureExport(String name, int rows, int warmup, int iterations) throws Exception {
+        List<Product> products = createProducts(rows);
+        MicroBenchmark.measure(name, warmup, iterations, 1, () -> {
+            ProductJsonCodec codec = new ProductJsonCodec(fakeDao(products, null));
+            int exported = codec.exportAll(new NullWriter(), null);
+            assertEquals(rows, exported);
+        });
+    }
+
+    private void measureImport(String name, int rows, int warmup, int iterations) throws Exception {
+        List<Product> products = createProducts(rows);
+        StringWriter json = new StringWriter();
+        new ProductJsonCodec(fakeDao(products, null)).exportAll(json, null);
+        String content = json.toString();
+
+        MicroBenchmark.measure(name, warmup, iterations, 1, () -> {
+            int[] inserted = {0};
+            ProductJsonCodec codec = new ProductJsonCodec(fakeDao(products, inserted));
+            try (Reader reader = new StringReader(content)) {
+                codec.importAll(reader, null, null);
+            }
+            assertEquals(rows, inserted[0]);
+        });
+    }
+
+    private static List<Product> createProducts(int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product(String.format("69%011d", i), "商品" + i,
+                    1 + (i % 500) / 10.0, 100 + i % 50, "分类" + (i % 20), null);
+            product.setId(i + 1);
+            products.add(product);
+        }
+        return products;
+    }
+
+    // 只实现编解码用到的 DAO 方法：导出游标和批量插入
+    private static ProductDao fakeDao(List<Product> products, int[] insertedCounter) {
+        return (ProductDao) Proxy.newProxyInstance(ProductDao.class.getClassLoader(), new Class<?>[]{ProductDao.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getAllProductsCursor":
+                            return fakeCursor(products);
+                        case "insertAll":
+                            insertedCounter[0] += ((List<?>) args[0]).size();
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static final String[] COLUMNS = {"id", "barcode", "name", "price", "stock", "category", "imagePath", "thumbnailPath"};
+
+    // 按 product 表列顺序遍历内存中的商品
+    private static Cursor fakeCursor(List<Product> products) {
+        int[] position = {-1};
+        return (Cursor) Proxy.newProxyInstance(Cursor.class.getClassLoader(), new Class<?>[]{Cursor.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "moveToNext":
+                            return ++position[0] < products.size();
+                        case "getColumnIndexOrThrow":
+                            return java.util.Arrays.asList(COLUMNS).indexOf((String) args[0]);
+                        case "isNull":
+                            return value(products.get(position[0]), (int) args[0]) == null;
+                        case "getString":
+                            return (String) value(products.get(position[0]), (int) args[0]);
+                        case "getInt":
+                            return ((Number) value(products.get(position[0]), (int) args[0])).intValue();
+                        case "getDouble":
+                            return ((Number) value(products.get(position[0]), (int) args[0])).doubleValue();
+                        case "close":
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static Object value(Product product, int column) {
+        switch (column) {
+            case 0: return product.getId();
+            case 1: return product.getBarcode();
+            case 2: return product.getName();
+            case 3: return product.getPrice();
+            case 4: return product.getStock();
+            case 5: return product.getCategory();
+            case 6: return product.getImagePath();
+            case 7: return product.getThumbnailPath();
+            default: throw new IllegalArgumentException("column " + column);
+        }
+    }
+
+    private static class NullWriter extends Writer {
+        @Override public void write(char[] cbuf, int off, int len) { }
+        @Override public void flush() { }
+        @Override public void close() throws IOException { }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.storecashier;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.junit.Assert.fail;
+
+/**
+ * 简易 JVM 微基准：预热 + 多轮采样，报告每次操作耗时的中位数和 p90
+ * - 默认跳过，./gradlew testDebugUnitTest -Pbenchmark 时运行
+ * - 加 -Pbenchmark.record 把本次结果写入 benchmark-baseline.properties 作为基线
+ * - 存在基线时，中位数比基线慢超过 REGRESSION_TOLERANCE 则测试失败
+ * - 每项最多采样 TRIALS 轮、取最快一轮的中位数，录制时跑满，比对时一轮通过即止，避免偶发抖动误报
+ */
+final class MicroBenchmark {
+    static final boolean ENABLED = Boolean.getBoolean("benchmark");
+    private static final boolean RECORD = Boolean.getBoolean("benchmark.record");
+    private static final File BASELINE_FILE = new File("benchmark-baseline.properties");
+    private static final double REGRESSION_TOLERANCE = 0.25;
+    private static final int TRIALS = 3;
+
+    private static final Properties baseline = load();
+    private static final Properties recorded = new Properties();
+
+    interface Body {
+        void run() throws Exception;
+    }
+
+    private MicroBenchmark() {}
+
+    /**
+     * @param opsPerIteration 每轮 body 内执行的操作次数，结果按单次操作折算
+     */
+    static void measure(String name, int warmupIterations, int iterations, int opsPerIteration, Body body) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            body.run();
+        }
+        String base = RECORD ? null : baseline.getProperty(name);
+        long best = Long.MAX_VALUE;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            best = Math.min(best, sample(name, iterations, opsPerIteration, body));
+            if (base != null && best <= Long.parseLong(base) * (1 + REGRESSION_TOLERANCE)) {
+                return;
+            }
+        }
+
+        recorded.setProperty(name, String.valueOf(best));
+        if (RECORD) {
+            save();
+            return;
+        }
+        if (base != null) {
+            fail(String.format(Locale.ROOT, "%s regressed: %d ns/op, baseline %s ns/op", name, best, base));
+        }
+    }
+
+    // 一轮采样，返回每次操作耗时的中位数
+    private static long sample(String name, int iterations, int opsPerIteration, Body body) throws Exception {
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            body.run();
+            samples[i] = (System.nanoTime() - start) / opsPerIteration;
+        }
+        Arrays.sort(samples);
+        long median = samples[iterations / 2];
+        long p90 = samples[Math.min(iterations - 1, (int) (iterations * 0.9))];
+        System.out.println(String.format(Locale.ROOT, "[benchmark] %-40s median %,12d ns/op   p90 %,12d ns/op",
+                name, median, p90));
+        return median;
+    }
+
+    private static Properties load() {
+        Properties properties = new Properties();
+        if (BASELINE_FILE.exists()) {
+            try (InputStream in = new FileInputStream(BASELINE_FILE)) {
+                properties.load(in);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read " + BASELINE_FILE.getAbsolutePath(), e);
+            }
+        }
+        return properties;
+    }
+
+    private static synchronized void save() throws IOException {
+        Properties merged = new Properties();
+        merged.putAll(baseline);
+        merged.putAll(recorded);
+        try (OutputStream out = new FileOutputStream(BASELINE_FILE)) {
+            merged.store(out, "Median ns/op, recorded with -Pbenchmark.record");
+        }
+    }
+}
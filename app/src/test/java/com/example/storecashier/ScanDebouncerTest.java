@@ -0,0 +1,66 @@
+package com.example.storecashier;
+
+import org.junit.Test;
+
+import static com.example.storecashier.ScanDebouncer.GLOBAL_FLOOR_MS;
+import static com.example.storecashier.ScanDebouncer.HANDHELD_DUPLICATE_MS;
+import static com.example.storecashier.ScanDebouncer.Result.ACCEPTED;
+import static com.example.storecashier.ScanDebouncer.Result.SAME_ITEM;
+import static com.example.storecashier.ScanDebouncer.Result.TOO_FAST;
+import static com.example.storecashier.ScanDebouncer.SAME_ITEM_GAP_MS;
+import static com.example.storecashier.ScanDebouncer.Source.CAMERA;
+import static com.example.storecashier.ScanDebouncer.Source.HANDHELD;
+import static org.junit.Assert.assertEquals;
+
+public class ScanDebouncerTest {
+    private static final String COLA = "6900000000011";
+    private static final String CHIPS = "6900000000028";
+
+    private final ScanDebouncer debouncer = new ScanDebouncer();
+
+    @Test
+    public void camera_itemHeldInViewCountsOnce() {
+        assertEquals(ACCEPTED, debouncer.onScan(COLA, CAMERA, 0));
+        // 每帧都识别到，总时长远超 1 秒，但间隔从未达到 SAME_ITEM_GAP_MS
+        for (long t = 100; t <= 5000; t += 100) {
+            assertEquals(SAME_ITEM, debouncer.onScan(COLA, CAMERA, t));
+        }
+    }
+
+    @Test
+    public void camera_sameItemAcceptedAfterGap() {
+        assertEquals(ACCEPTED, debouncer.onScan(COLA, CAMERA, 0));
+        assertEquals(SAME_ITEM, debouncer.onScan(COLA, CAMERA, SAME_ITEM_GAP_MS - 1));
+        // 从最后一次看到算起
+        long lastSeen = SAME_ITEM_GAP_MS - 1;
+        assertEquals(SAME_ITEM, debouncer.onScan(COLA, CAMERA, lastSeen + SAME_ITEM_GAP_MS - 1));
+        assertEquals(ACCEPTED, debouncer.onScan(COLA, CAMERA, lastSeen + SAME_ITEM_GAP_MS - 1 + SAME_ITEM_GAP_MS));
+    }
+
+    @Test
+    public void camera_differentItemWithinFloorIsTooFastAndNotRecorded() {
+        assertEquals(ACCEPTED, debouncer.onScan(COLA, CAMERA, 0));
+        assertEquals(TOO_FAST, debouncer.onScan(CHIPS, CAMERA, GLOBAL_FLOOR_MS - 1));
+        // 没有被记为“已看到”，过了全局间隔后下一帧直接入账，而不是 SAME_ITEM
+        assertEquals(ACCEPTED, debouncer.onScan(CHIPS, CAMERA, GLOBAL_FLOOR_MS));
+    }
+
+    @Test
+    public void handheld_duplicateReportFiltered() {
+        assertEquals(ACCEPTED, debouncer.onScan(COLA, HANDHELD, 0));
+        assertEquals(SAME_ITEM, debouncer.onScan(COLA, HANDHELD, HANDHELD_DUPLICATE_MS - 1));
+        // 扫码枪每次扣扳机都算一件，不受摄像头的同品间隔限制
+        assertEquals(ACCEPTED, debouncer.onScan(COLA, HANDHELD, HANDHELD_DUPLICATE_MS - 1 + HANDHELD_DUPLICATE_MS));
+        assertEquals(ACCEPTED, debouncer.onScan(CHIPS, HANDHELD, HANDHELD_DUPLICATE_MS - 1 + HANDHELD_DUPLICATE_MS + 1));
+    }
+
+    @Test
+    public void reset_clearsState() {
+        assertEquals(ACCEPTED, debouncer.onScan(COLA, CAMERA, 0));
+        debouncer.reset();
+        // 同一件商品和全局间隔都不再生效
+        assertEquals(ACCEPTED, debouncer.onScan(COLA, CAMERA, 10));
+        debouncer.reset();
+        assertEquals(ACCEPTED, debouncer.onScan(CHIPS, CAMERA, 20));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.storecashier;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 库存预占台账：多单购物车与待入库订单的占用，以及结算交接过程中可用库存不会被多算
+ */
+public class StockLedgerTest {
+    private static final String COLA = "6900000000011";
+
+    private final StockLedger ledger = new StockLedger();
+    private final Product cola = new Product(COLA, "可乐", 3.0, 10, "饮料", null);
+
+    @Test
+    public void cartChangesUpdateReservation() {
+        CartModel cart = new CartModel();
+        ledger.attach(cart);
+        cart.add(cola);
+        cart.add(cola);
+        assertEquals(8, ledger.getAvailable(cola));
+        cart.setQuantity(COLA, 5);
+        assertEquals(5, ledger.getAvailable(cola));
+        cart.remove(COLA);
+        assertEquals(10, ledger.getAvailable(cola));
+        cart.add(cola);
+        cart.clear();
+        assertEquals(10, ledger.getAvailable(cola));
+    }
+
+    @Test
+    public void attachAndDetachCountExistingLines() {
+        CartModel cart = new CartModel();
+        cart.add(cola);
+        cart.setQuantity(COLA, 4);
+        ledger.attach(cart);
+        assertEquals(6, ledger.getAvailable(cola));
+
+        ledger.detach(cart);
+        assertEquals(10, ledger.getAvailable(cola));
+        // 解除后的修改不再计入
+        cart.setQuantity(COLA, 9);
+        assertEquals(10, ledger.getAvailable(cola));
+    }
+
+    @Test
+    public void reservationsAddUpAcrossBaskets() {
+        CartModel parked = new CartModel();
+        CartModel active = new CartModel();
+        ledger.attach(parked);
+        ledger.attach(active);
+        parked.add(cola);
+        parked.setQuantity(COLA, 6);
+        active.add(cola);
+        active.setQuantity(COLA, 3);
+        assertEquals(1, ledger.getAvailable(cola));
+        assertEquals(StockLedger.Level.LOW, ledger.getLevel(cola));
+
+        active.increment(COLA);
+        active.increment(COLA);
+        assertEquals(-1, ledger.getAvailable(cola));
+        assertEquals(StockLedger.Level.OVERSOLD, ledger.getLevel(cola));
+    }
+
+    // 按结算交接的实际顺序：落盘后占用订单 → 删除该单 → 入库并刷新缓存库存 → 释放订单
+    @Test
+    public void checkoutHandOffNeverFreesHeldStock() {
+        CartModel basket = new CartModel();
+        ledger.attach(basket);
+        basket.add(cola);
+        basket.setQuantity(COLA, 3);
+        assertEquals(7, ledger.getAvailable(cola));
+
+        ledger.holdOrder(1, Collections.singletonMap(COLA, 3));
+        // 购物车和订单同时占用，只会少算不会多算
+        assertEquals(4, ledger.getAvailable(cola));
+
+        ledger.detach(basket);
+        assertEquals(7, ledger.getAvailable(cola));
+
+        // 入库后缓存换成扣减后的新实例，释放前同样只会少算
+        Product committed = new Product(cola);
+        committed.setStock(7);
+        assertEquals(4, ledger.getAvailable(committed));
+
+        ledger.releaseOrder(1);
+        assertEquals(7, ledger.getAvailable(committed));
+        assertEquals(0, ledger.getReserved(COLA));
+    }
+
+    @Test
+    public void holdAndReleaseAreIdempotent() {
+        ledger.holdOrder(1, Collections.singletonMap(COLA, 2));
+        // 重启后重新提交同一订单
+        ledger.holdOrder(1, Collections.singletonMap(COLA, 2));
+        assertEquals(8, ledger.getAvailable(cola));
+        ledger.releaseOrder(1);
+        ledger.releaseOrder(1);
+        assertEquals(10, ledger.getAvailable(cola));
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.storecashier;
+
+import com.thegrizzlylabs.sardineandroid.Sardine;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * WebDAVTransfer 的并发上传、失败重试、相同内容跳过，使用内存中的 WebDAV 替身
+ */
+public class WebDAVTransferTest {
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    // 内存中的 WebDAV：记录每个地址的请求次数，可以指定某个地址前几次请求失败
+    private static class FakeDav {
+        final Map<String, byte[]> files = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+        final Map<String, Integer> failuresLeft = new ConcurrentHashMap<>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        long latencyMillis;
+        // 设置后每个请求都要等到计数归零才返回，用来证明有多个请求同时在途
+        CountDownLatch rendezvous;
+
+        Sardine sardine() {
+            return (Sardine) Proxy.newProxyInstance(Sardine.class.getClassLoader(), new Class<?>[]{Sardine.class},
+                    (proxy, method, args) -> {
+                        String url = (String) args[0];
+                        switch (method.getName()) {
+                            case "put":
+                                enter(url);
+                                try {
+                                    files.put(url, java.nio.file.Files.readAllBytes(((File) args[1]).toPath()));
+                                    return null;
+                                } finally {
+                                    inFlight.decrementAndGet();
+                                }
+                            case "get":
+                                enter(url);
+                                inFlight.decrementAndGet();
+                                byte[] content = files.get(url);
+                                if (content == null) throw new IOException("404 " + url);
+                                return new ByteArrayInputStream(content);
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        private void enter(String url) throws IOException, InterruptedException {
+            requests.computeIfAbsent(url, k -> new AtomicInteger()).incrementAndGet();
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            if (rendezvous != null) {
+                rendezvous.countDown();
+                rendezvous.await(5, TimeUnit.SECONDS);
+            }
+            if (latencyMillis > 0) Thread.sleep(latencyMillis);
+            Integer left = failuresLeft.get(url);
+            if (left != null && left != 0) {
+                if (left > 0) failuresLeft.put(url, left - 1);
+                inFlight.decrementAndGet();
+                throw new IOException("503 " + url);
+            }
+        }
+
+        int requestCount(String url) {
+            AtomicInteger count = requests.get(url);
+            return count == null ? 0 : count.get();
+        }
+    }
+
+    private final FakeDav dav = new FakeDav();
+
+    @Test
+    public void upload_retriesThenSucceeds() throws IOException {
+        File file = writeFile("a.jpg", "image-a");
+        dav.failuresLeft.put("dav/a.jpg", 2);
+
+        WebDAVTransfer.Summary summary = new WebDAVTransfer(dav.sardine(), 2, 1)
+                .upload(Collections.singletonList(new WebDAVTransfer.UploadTask(file, "dav/a.jpg", "image/jpeg")));
+
+        assertEquals(1, summary.getTransferred());
+        assertEquals(0, summary.getFailed());
+        assertEquals(file.length(), summary.getBytes());
+        assertEquals(3, dav.requestCount("dav/a.jpg"));
+        assertEquals("image-a", new String(dav.files.get("dav/a.jpg"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void upload_permanentFailureCountedOnce() throws IOException {
+        File good = writeFile("good.jpg", "good");
+        File bad = writeFile("bad.jpg", "bad");
+        // 一直失败
+        dav.failuresLeft.put("dav/bad.jpg", -1);
+
+        WebDAVTransfer.Summary summary = new WebDAVTransfer(dav.sardine(), 2, 1).upload(List.of(
+                new WebDAVTransfer.UploadTask(good, "dav/good.jpg", "image/jpeg"),
+                new WebDAVTransfer.UploadTask(bad, "dav/bad.jpg", "image/jpeg")));
+
+        assertEquals(1, summary.getTransferred());
+        assertEquals(1, summary.getFailed());
+        assertEquals(0, summary.getSkipped());
+        assertEquals(good.length(), summary.getBytes());
+        // 重试次数用完后放弃
+        assertEquals(3, dav.requestCount("dav/bad.jpg"));
+    }
+
+    @Test
+    public void download_skipsIdenticalLocalFile() throws IOException {
+        byte[] content = "image-content".getBytes(StandardCharsets.UTF_8);
+        dav.files.put("dav/same.jpg", content);
+        dav.files.put("dav/new.jpg", content);
+        File same = writeFile("same.jpg", "image-content");
+        File fresh = new File(temp.getRoot(), "new.jpg");
+        String hash = HashUtil.sha256Hex(content);
+        FileHashCache hashCache = new FileHashCache(new File(temp.getRoot(), "hashes.json"));
+
+        WebDAVTransfer.Summary summary = new WebDAVTransfer(dav.sardine(), 2, 1).download(List.of(
+                new WebDAVTransfer.DownloadTask("dav/same.jpg", same, hash, content.length, null),
+                new WebDAVTransfer.DownloadTask("dav/new.jpg", fresh, hash, content.length, null)), hashCache, null);
+
+        assertEquals(1, summary.getSkipped());
+        assertEquals(1, summary.getTransferred());
+        assertEquals(content.length, summary.getBytes());
+        assertEquals(0, dav.requestCount("dav/same.jpg"));
+        assertEquals(hash, HashUtil.sha256Hex(fresh));
+    }
+
+    @Test
+    public void upload_parallelismIsBounded() throws IOException {
+        dav.latencyMillis = 50;
+        dav.rendezvous = new CountDownLatch(2);
+        List<WebDAVTransfer.UploadTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            tasks.add(new WebDAVTransfer.UploadTask(writeFile(i + ".jpg", "image-" + i), "dav/" + i + ".jpg", "image/jpeg"));
+        }
+
+        WebDAVTransfer.Summary summary = new WebDAVTransfer(dav.sardine(), 3, 1).upload(tasks);
+
+        assertEquals(12, summary.getTransferred());
+        assertEquals(12, dav.files.size());
+        // 两个请求在 rendezvous 处会合过，说明确实并发；线程调度不保证一定达到 3 个
+        assertEquals(0, dav.rendezvous.getCount());
+        assertTrue(dav.maxInFlight.get() >= 2);
+        assertTrue(dav.maxInFlight.get() <= 3);
+    }
+
+    private File writeFile(String name, String content) throws IOException {
+        File file = new File(temp.getRoot(), name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+}